@@ -0,0 +1,197 @@
+package com.mediaclipboard;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads media bundled inside the APK through AssetManager
+ */
+public class MediaClipboardAssets {
+
+    public static final String ASSET_SCHEME = "asset://";
+    public static final String ANDROID_ASSET_PREFIX = "file:///android_asset/";
+
+    private final Context context;
+    private final Map<String, AssetInfo> assetInfoCache = new ConcurrentHashMap<>();
+
+    /**
+     * Cached AssetFileDescriptor metadata for a single asset entry
+     */
+    static class AssetInfo {
+        static final AssetInfo MISSING = new AssetInfo(false, false, -1, -1);
+
+        final boolean exists;
+        final boolean compressed;
+        final long startOffset;
+        final long length;
+
+        AssetInfo(boolean exists, boolean compressed, long startOffset, long length) {
+            this.exists = exists;
+            this.compressed = compressed;
+            this.startOffset = startOffset;
+            this.length = length;
+        }
+    }
+
+    public MediaClipboardAssets(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Check if a path explicitly refers to a bundled asset
+     */
+    public static boolean isAssetPath(String path) {
+        return path.startsWith(ASSET_SCHEME) || path.startsWith(ANDROID_ASSET_PREFIX);
+    }
+
+    /**
+     * Convert "asset://name" or "file:///android_asset/name" to the AssetManager entry name
+     */
+    public static String toAssetName(String path) {
+        String name = path;
+        if (name.startsWith(ASSET_SCHEME)) {
+            name = name.substring(ASSET_SCHEME.length());
+        } else if (name.startsWith(ANDROID_ASSET_PREFIX)) {
+            name = name.substring(ANDROID_ASSET_PREFIX.length());
+        }
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return name;
+    }
+
+    /**
+     * Check if an asset with the given name is packaged in the APK
+     */
+    public boolean exists(String assetName) {
+        return lookup(assetName).exists;
+    }
+
+    /**
+     * Resolve (and cache) the location of an asset inside the APK.
+     * Uncompressed entries expose an offset/length into the APK file; compressed
+     * entries cannot be opened as a file descriptor and must be streamed.
+     */
+    AssetInfo lookup(String assetName) {
+        AssetInfo cached = assetInfoCache.get(assetName);
+        if (cached != null) {
+            return cached;
+        }
+
+        AssetManager assetManager = context.getAssets();
+        AssetInfo info;
+        try (AssetFileDescriptor afd = assetManager.openFd(assetName)) {
+            info = new AssetInfo(true, false, afd.getStartOffset(), afd.getLength());
+        } catch (FileNotFoundException e) {
+            // openFd also throws FileNotFoundException for compressed entries
+            info = AssetInfo.MISSING;
+            try (InputStream ignored = assetManager.open(assetName, AssetManager.ACCESS_STREAMING)) {
+                info = new AssetInfo(true, true, 0, -1);
+            } catch (IOException notFound) {
+                // Asset does not exist
+            }
+        } catch (IOException e) {
+            info = AssetInfo.MISSING;
+        }
+
+        assetInfoCache.put(assetName, info);
+        return info;
+    }
+
+    /**
+     * Uncompressed size of an asset, or -1 if unknown (compressed or missing)
+     */
+    public long getLength(String assetName) {
+        return lookup(assetName).length;
+    }
+
+    /**
+     * Check if the asset was already copied into the given directory by an earlier call
+     */
+    public boolean isMaterialized(String assetName, File targetDir) {
+        AssetInfo info = lookup(assetName);
+        File target = getTargetFile(assetName, targetDir);
+        return info.exists && target.exists() && (info.length < 0 || target.length() == info.length);
+    }
+
+    private File getTargetFile(String assetName, File targetDir) {
+        return new File(targetDir, "clipboard_asset_" + assetName.replace('/', '_'));
+    }
+
+    /**
+     * Copy an asset into the given directory so it can be shared through FileProvider.
+     * Returns null if the asset does not exist. Compressed assets, whose size is unknown
+     * until inflated, fail with QuotaExceededException past maxBytes.
+     */
+    public File materialize(String assetName, File targetDir, long maxBytes) throws IOException {
+        AssetInfo info = lookup(assetName);
+        if (!info.exists) {
+            return null;
+        }
+
+        File target = getTargetFile(assetName, targetDir);
+        if (isMaterialized(assetName, targetDir)) {
+            android.util.Log.d("MediaClipboard", "Reusing materialized asset: " + target.getAbsolutePath());
+            return target;
+        }
+
+        if (info.compressed) {
+            streamAsset(assetName, target, maxBytes);
+        } else {
+            transferAsset(assetName, info, target);
+        }
+
+        android.util.Log.d("MediaClipboard", "Materialized asset '" + assetName + "' to: " + target.getAbsolutePath() + " (compressed: " + info.compressed + ")");
+        return target;
+    }
+
+    /**
+     * Zero-copy transfer of an uncompressed asset straight out of the APK file
+     */
+    private void transferAsset(String assetName, AssetInfo info, File target) throws IOException {
+        File partialFile = MediaClipboardUtils.getPartialFile(target);
+        try (AssetFileDescriptor afd = context.getAssets().openFd(assetName);
+             FileChannel source = afd.createInputStream().getChannel();
+             FileChannel destination = new FileOutputStream(partialFile).getChannel()) {
+            long position = afd.getStartOffset();
+            long remaining = afd.getLength();
+            while (remaining > 0) {
+                long transferred = source.transferTo(position, remaining, destination);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of asset: " + assetName);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        }
+        MediaClipboardUtils.commitPartialFile(partialFile, target);
+    }
+
+    /**
+     * Stream a compressed asset through the AssetManager inflater
+     */
+    private void streamAsset(String assetName, File target, long maxBytes) throws IOException {
+        File partialFile = MediaClipboardUtils.getPartialFile(target);
+        try (InputStream inputStream = context.getAssets().open(assetName, AssetManager.ACCESS_STREAMING);
+             FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+            MediaClipboardUtils.copyStream(inputStream, outputStream, null, -1, maxBytes); // Length unknown until inflated
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        }
+        MediaClipboardUtils.commitPartialFile(partialFile, target);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of I/O buffers for the stream-copy loops.
+ * Buffers come in a few size classes picked from the expected content length, so
+ * small copies stay cheap and large ones get flash-friendly chunk sizes. Each class
+ * keeps at most MAX_POOLED_PER_SIZE idle buffers; extra ones are left to the GC.
+ */
+public class MediaClipboardBufferPool {
+
+    public static final int SMALL_BUFFER_SIZE = 64 * 1024;    // 64 KB
+    public static final int MEDIUM_BUFFER_SIZE = 256 * 1024;  // 256 KB
+    public static final int LARGE_BUFFER_SIZE = 1024 * 1024;  // 1 MB
+    private static final int[] BUFFER_SIZES = {SMALL_BUFFER_SIZE, MEDIUM_BUFFER_SIZE, LARGE_BUFFER_SIZE};
+    private static final long MEDIUM_CONTENT_THRESHOLD = 1024L * 1024;     // Content over 1 MB gets 256 KB buffers
+    private static final long LARGE_CONTENT_THRESHOLD = 8L * 1024 * 1024;  // Content over 8 MB gets 1 MB buffers
+    private static final int MAX_POOLED_PER_SIZE = 4;
+
+    private static final MediaClipboardBufferPool SHARED = new MediaClipboardBufferPool();
+
+    private final List<ArrayBlockingQueue<byte[]>> pools = new ArrayList<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Pool shared by every copy loop in the process
+     */
+    public static MediaClipboardBufferPool shared() {
+        return SHARED;
+    }
+
+    MediaClipboardBufferPool() {
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            pools.add(new ArrayBlockingQueue<>(MAX_POOLED_PER_SIZE));
+        }
+    }
+
+    /**
+     * Buffer size for content of the given length (negative if unknown)
+     */
+    public static int bufferSizeFor(long contentLength) {
+        if (contentLength > LARGE_CONTENT_THRESHOLD) {
+            return LARGE_BUFFER_SIZE;
+        }
+        if (contentLength > MEDIUM_CONTENT_THRESHOLD) {
+            return MEDIUM_BUFFER_SIZE;
+        }
+        return SMALL_BUFFER_SIZE;
+    }
+
+    /**
+     * Take a buffer sized for the given content length, allocating one if none is idle.
+     * Hand it back with release() when the copy is done.
+     */
+    public byte[] acquire(long contentLength) {
+        int size = bufferSizeFor(contentLength);
+        byte[] buffer = pools.get(indexOf(size)).poll();
+        if (buffer != null) {
+            hits.incrementAndGet();
+            return buffer;
+        }
+        misses.incrementAndGet();
+        return new byte[size];
+    }
+
+    /**
+     * Return a buffer to the pool. Buffers not from this pool are ignored.
+     */
+    public void release(byte[] buffer) {
+        int index = indexOf(buffer.length);
+        if (index < 0) {
+            return;
+        }
+        if (!pools.get(index).offer(buffer)) {
+            dropped.incrementAndGet(); // Class already full
+        }
+    }
+
+    private static int indexOf(int size) {
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            if (BUFFER_SIZES[i] == size) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Snapshot of pool metrics for JS
+     */
+    public WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        long pooledBytes = 0;
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            pooledBytes += (long) pools.get(i).size() * BUFFER_SIZES[i];
+        }
+        map.putDouble("hits", hits.get());
+        map.putDouble("misses", misses.get());
+        map.putDouble("dropped", dropped.get());
+        map.putDouble("pooledBytes", pooledBytes);
+        return map;
+    }
+}
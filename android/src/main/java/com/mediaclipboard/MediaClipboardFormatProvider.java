@@ -0,0 +1,239 @@
+package com.mediaclipboard;
+
+import android.content.ClipDescription;
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.text.TextUtils;
+import android.webkit.MimeTypeMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves a clipboard image together with alternate encodings of it. The clip holds a
+ * single URI; paste targets see the alternates through getStreamTypes and pick one
+ * with openTypedAssetFile, which converts the image the first time it is asked for.
+ *
+ * URIs look like content://&lt;package&gt;.mediaclipboard.formats/&lt;root&gt;/&lt;path&gt;?type=&lt;mime&gt;&amp;alt=&lt;mime,...&gt;
+ * and can only point into the app's own cache and files directories.
+ */
+public class MediaClipboardFormatProvider extends ContentProvider {
+
+    public static final String AUTHORITY_SUFFIX = ".mediaclipboard.formats";
+    private static final String PARAM_TYPE = "type";
+    private static final String PARAM_ALTERNATES = "alt";
+    private static final String[] COLUMNS = {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE};
+
+    /**
+     * URI serving a file and its alternate encodings, or null if the file is outside
+     * the directories this provider may serve
+     */
+    @Nullable
+    public static Uri getUri(Context context, File file, @Nullable String mimeType, List<String> alternates) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            return null;
+        }
+        for (Map.Entry<String, File> root : getRoots(context).entrySet()) {
+            String rootPath;
+            try {
+                rootPath = root.getValue().getCanonicalPath();
+            } catch (IOException e) {
+                continue;
+            }
+            if (!path.startsWith(rootPath + File.separator)) {
+                continue;
+            }
+            Uri.Builder builder = new Uri.Builder()
+                    .scheme("content")
+                    .authority(context.getPackageName() + AUTHORITY_SUFFIX)
+                    .appendPath(root.getKey())
+                    .appendEncodedPath(Uri.encode(path.substring(rootPath.length() + 1), "/"));
+            if (mimeType != null) {
+                builder.appendQueryParameter(PARAM_TYPE, mimeType);
+            }
+            if (!alternates.isEmpty()) {
+                builder.appendQueryParameter(PARAM_ALTERNATES, TextUtils.join(",", alternates));
+            }
+            return builder.build();
+        }
+        return null;
+    }
+
+    private static Map<String, File> getRoots(Context context) {
+        Map<String, File> roots = new LinkedHashMap<>();
+        roots.put("cache", context.getCacheDir());
+        roots.put("files", context.getFilesDir());
+        if (context.getExternalCacheDir() != null) {
+            roots.put("external_cache", context.getExternalCacheDir());
+        }
+        if (context.getExternalFilesDir(null) != null) {
+            roots.put("external_files", context.getExternalFilesDir(null));
+        }
+        return roots;
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        String type = uri.getQueryParameter(PARAM_TYPE);
+        if (type != null) {
+            return type;
+        }
+        String extension = MimeTypeMap.getFileExtensionFromUrl(uri.getLastPathSegment());
+        return extension != null ? MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension) : null;
+    }
+
+    @Nullable
+    @Override
+    public String[] getStreamTypes(@NonNull Uri uri, @NonNull String mimeTypeFilter) {
+        List<String> types = new ArrayList<>();
+        String type = getType(uri);
+        if (type != null && ClipDescription.compareMimeTypes(type, mimeTypeFilter)) {
+            types.add(type);
+        }
+        for (String alternate : getAlternates(uri)) {
+            if (!alternate.equals(type) && ClipDescription.compareMimeTypes(alternate, mimeTypeFilter)) {
+                types.add(alternate);
+            }
+        }
+        return types.isEmpty() ? null : types.toArray(new String[0]);
+    }
+
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+        if (!"r".equals(mode)) {
+            throw new FileNotFoundException("Clipboard media is read-only: " + uri);
+        }
+        return ParcelFileDescriptor.open(getFile(uri), ParcelFileDescriptor.MODE_READ_ONLY);
+    }
+
+    @Nullable
+    @Override
+    public AssetFileDescriptor openTypedAssetFile(@NonNull Uri uri, @NonNull String mimeTypeFilter, @Nullable Bundle opts) throws FileNotFoundException {
+        String type = getType(uri);
+        if ("*/*".equals(mimeTypeFilter) || (type != null && ClipDescription.compareMimeTypes(type, mimeTypeFilter))) {
+            File file = getFile(uri);
+            return new AssetFileDescriptor(ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY), 0, file.length());
+        }
+
+        for (String alternate : getAlternates(uri)) {
+            if (!ClipDescription.compareMimeTypes(alternate, mimeTypeFilter)) {
+                continue;
+            }
+            try {
+                File converted = MediaClipboardFormats.shared().convert(getFile(uri), alternate, MediaClipboardFormats.getCacheDir(getContext()));
+                return new AssetFileDescriptor(ParcelFileDescriptor.open(converted, ParcelFileDescriptor.MODE_READ_ONLY), 0, converted.length());
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                FileNotFoundException notFound = new FileNotFoundException("Could not convert " + uri + " to " + alternate);
+                notFound.initCause(e);
+                throw notFound;
+            }
+        }
+        throw new FileNotFoundException("No " + mimeTypeFilter + " representation of " + uri);
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        File file;
+        try {
+            file = getFile(uri);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        String[] columns = projection != null ? projection : COLUMNS;
+        MatrixCursor cursor = new MatrixCursor(columns, 1);
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (OpenableColumns.DISPLAY_NAME.equals(columns[i])) {
+                row[i] = file.getName();
+            } else if (OpenableColumns.SIZE.equals(columns[i])) {
+                row[i] = file.length();
+            }
+        }
+        cursor.addRow(row);
+        return cursor;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        throw new UnsupportedOperationException("Clipboard media is read-only");
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection, @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Clipboard media is read-only");
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException("Clipboard media is read-only");
+    }
+
+    /**
+     * Alternate MIME types listed in the URI that can actually be encoded
+     */
+    private static List<String> getAlternates(Uri uri) {
+        List<String> alternates = new ArrayList<>();
+        String value = uri.getQueryParameter(PARAM_ALTERNATES);
+        if (value != null) {
+            for (String alternate : value.split(",")) {
+                if (MediaClipboardFormats.canEncode(alternate)) {
+                    alternates.add(alternate);
+                }
+            }
+        }
+        return alternates;
+    }
+
+    /**
+     * Resolve a URI to its file, refusing paths that escape the root
+     */
+    private File getFile(Uri uri) throws FileNotFoundException {
+        List<String> segments = uri.getPathSegments();
+        File root = segments.size() >= 2 ? getRoots(getContext()).get(segments.get(0)) : null;
+        if (root == null) {
+            throw new FileNotFoundException("Unknown clipboard media URI: " + uri);
+        }
+        File file = new File(root, TextUtils.join(File.separator, segments.subList(1, segments.size())));
+        try {
+            if (!file.getCanonicalPath().startsWith(root.getCanonicalPath() + File.separator)) {
+                throw new SecurityException("Path outside of " + segments.get(0) + ": " + uri);
+            }
+        } catch (IOException e) {
+            throw new FileNotFoundException("Cannot resolve " + uri);
+        }
+        if (!file.exists()) {
+            throw new FileNotFoundException("File not found: " + uri);
+        }
+        return file;
+    }
+}
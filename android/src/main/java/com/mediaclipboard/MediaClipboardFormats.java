@@ -0,0 +1,196 @@
+package com.mediaclipboard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alternate encodings of clipboard images, converted only when a paste target asks
+ * for one and cached on disk so each format is encoded at most once per source.
+ * Bitmap.compress can only encode JPEG, PNG and WebP, so HEIC is never offered.
+ * Converted files count towards the clipboard storage quota like any staged copy.
+ */
+public class MediaClipboardFormats {
+
+    public static final List<String> ENCODABLE_TYPES = Collections.unmodifiableList(
+            Arrays.asList("image/jpeg", "image/png", "image/webp"));
+    private static final String CACHE_DIR_NAME = "mediaclipboard_formats";
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024; // Oldest conversions are dropped beyond this
+    private static final int QUALITY = 90;
+
+    private static final MediaClipboardFormats SHARED = new MediaClipboardFormats();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile MediaClipboardStorage storage = new MediaClipboardStorage(); // Unlimited until the module sets its own
+
+    /**
+     * Converter shared by the module and the format provider
+     */
+    public static MediaClipboardFormats shared() {
+        return SHARED;
+    }
+
+    /**
+     * Account conversions against the module's storage quota
+     */
+    public void setStorage(MediaClipboardStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Check if an image can be encoded to the given MIME type
+     */
+    public static boolean canEncode(String mimeType) {
+        return ENCODABLE_TYPES.contains(mimeType);
+    }
+
+    /**
+     * Directory holding converted files, kept apart from the staging files
+     */
+    public static File getCacheDir(Context context) {
+        return new File(context.getCacheDir(), CACHE_DIR_NAME);
+    }
+
+    /**
+     * Cache file for a source in a given format. The name is derived from the path,
+     * size and modification time, so an edited source is converted again.
+     */
+    public File getConvertedFile(File source, String mimeType, File cacheDir) {
+        String key = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified() + "|" + mimeType;
+        String hash = MediaClipboardUtils.sha256(key.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return new File(cacheDir, "format_" + hash + "." + mimeType.substring(mimeType.indexOf('/') + 1));
+    }
+
+    /**
+     * Get the cached conversion of a source or encode a new one
+     */
+    public File convert(File source, String mimeType, File cacheDir) throws IOException {
+        if (!canEncode(mimeType)) {
+            throw new FileNotFoundException("Cannot encode images as " + mimeType);
+        }
+        File convertedFile = getConvertedFile(source, mimeType, cacheDir);
+        if (convertedFile.exists()) {
+            convertedFile.setLastModified(System.currentTimeMillis()); // Keep it past the next trim
+            hits.incrementAndGet();
+            return convertedFile;
+        }
+
+        Bitmap bitmap = BitmapFactory.decodeFile(source.getAbsolutePath());
+        if (bitmap == null) {
+            failures.incrementAndGet();
+            throw new IOException("Could not decode " + source.getName());
+        }
+        if ("image/jpeg".equals(mimeType) && bitmap.hasAlpha()) {
+            bitmap = flatten(bitmap); // JPEG has no alpha channel; transparent pixels would turn black
+        }
+
+        // Write under a unique name first so concurrent readers never see a partial image
+        cacheDir.mkdirs();
+        File partialFile = MediaClipboardUtils.getPartialFile(convertedFile);
+        MediaClipboardStorage storage = this.storage;
+        MediaClipboardStorage.CopySession session = storage.beginCopy();
+        session.markConversion();
+        session.setStagingPath("conversion");
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+                if (!bitmap.compress(getCompressFormat(mimeType), QUALITY, outputStream)) {
+                    throw new IOException("Could not encode " + source.getName() + " as " + mimeType);
+                }
+            } finally {
+                bitmap.recycle();
+            }
+            // The encoded size is only known once written, so check the quota before publishing
+            session.setPayloadBytes(partialFile.length());
+            try {
+                session.reserve(partialFile.length());
+            } catch (MediaClipboardStorage.QuotaExceededException e) {
+                storage.refuseCopy();
+                throw e;
+            }
+            MediaClipboardUtils.commitPartialFile(partialFile, convertedFile);
+            session.recordWrite(convertedFile, convertedFile.length());
+        } catch (IOException e) {
+            partialFile.delete();
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            storage.finishCopy(session);
+        }
+
+        conversions.incrementAndGet();
+        trimCache(cacheDir, convertedFile, storage);
+        android.util.Log.d("MediaClipboard", "Converted " + source.getName() + " to " + mimeType + ": " + convertedFile.length() + " bytes");
+        return convertedFile;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat getCompressFormat(String mimeType) {
+        switch (mimeType) {
+            case "image/jpeg":
+                return Bitmap.CompressFormat.JPEG;
+            case "image/png":
+                return Bitmap.CompressFormat.PNG;
+            default:
+                return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+        }
+    }
+
+    private static Bitmap flatten(Bitmap bitmap) {
+        Bitmap flattened = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(flattened);
+        canvas.drawColor(Color.WHITE);
+        canvas.drawBitmap(bitmap, 0, 0, null);
+        bitmap.recycle();
+        return flattened;
+    }
+
+    /**
+     * Delete the least recently used conversions beyond the cache limit
+     */
+    private void trimCache(File cacheDir, File keep, MediaClipboardStorage storage) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        long totalBytes = 0;
+        for (File file : files) {
+            if (MediaClipboardUtils.isPartialFile(file)) {
+                continue;
+            }
+            totalBytes += file.length();
+            if (totalBytes > MAX_CACHE_BYTES && !file.equals(keep) && file.delete()) {
+                storage.release(file);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of conversion metrics for JS
+     */
+    public WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("hits", hits.get());
+        map.putDouble("conversions", conversions.get());
+        map.putDouble("failures", failures.get());
+        return map;
+    }
+}
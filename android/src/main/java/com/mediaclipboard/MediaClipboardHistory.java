@@ -0,0 +1,322 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded clipboard history stored as a ring buffer of fixed-size slots in a
+ * memory-mapped file, so entries survive process restarts without per-entry objects.
+ *
+ * File layout: a 32 byte header followed by capacity slots of SLOT_SIZE bytes.
+ * Header: magic, version, capacity, slot size, next write index, entry count.
+ * Slot: timestamp (long), type (byte), flags (byte), MIME length (short),
+ * data length (int), MIME bytes (MAX_MIME_BYTES), data bytes (rest of the slot).
+ */
+public class MediaClipboardHistory {
+
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final byte TYPE_TEXT = 0;
+    public static final byte TYPE_URI = 1;
+    public static final byte TYPE_HTML = 2;
+
+    private static final int MAGIC = 0x4D434C48; // "MCLH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 1024;
+    private static final int SLOT_HEADER_SIZE = 16;
+    private static final int MAX_MIME_BYTES = 64;
+    private static final int MAX_DATA_BYTES = SLOT_SIZE - SLOT_HEADER_SIZE - MAX_MIME_BYTES;
+    private static final byte FLAG_TRUNCATED = 1;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_SLOT_SIZE = 12;
+    private static final int OFFSET_HEAD = 16;
+    private static final int OFFSET_COUNT = 20;
+
+    private static final String[] TYPE_NAMES = {"text", "uri", "html"};
+
+    private final File file;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    /**
+     * A decoded history entry
+     */
+    static class Entry {
+        final long timestamp;
+        final byte type;
+        final String mimeType;
+        final String data;
+        final boolean truncated;
+
+        Entry(long timestamp, byte type, String mimeType, String data, boolean truncated) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.mimeType = mimeType;
+            this.data = data;
+            this.truncated = truncated;
+        }
+    }
+
+    public MediaClipboardHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Map the history file, creating it or resizing it to the given capacity.
+     * Existing entries are kept (newest first) when the capacity changes.
+     */
+    public synchronized void open(int capacity) throws IOException {
+        if (buffer != null && this.capacity == capacity) {
+            return;
+        }
+
+        List<Entry> existing = new ArrayList<>();
+        if (buffer == null && file.exists()) {
+            map(file, file.length());
+            if (isValid()) {
+                this.capacity = buffer.getInt(OFFSET_CAPACITY);
+            } else {
+                buffer = null;
+            }
+        }
+        if (buffer != null) {
+            if (this.capacity == capacity) {
+                return;
+            }
+            existing = read(0, Math.min(capacity, count()));
+            buffer.force();
+        }
+
+        // Build the resized history in a temp file and rename it over the old one,
+        // so a crash part way through leaves the previous history intact
+        File temp = new File(file.getPath() + ".tmp");
+        map(temp, (long) HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        this.capacity = capacity;
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putInt(OFFSET_SLOT_SIZE, SLOT_SIZE);
+        buffer.putInt(OFFSET_HEAD, 0);
+        buffer.putInt(OFFSET_COUNT, 0);
+
+        // Re-append oldest first so the newest entry ends up at the head
+        for (int i = existing.size() - 1; i >= 0; i--) {
+            Entry entry = existing.get(i);
+            write(entry.timestamp, entry.type, entry.mimeType, entry.data);
+        }
+        buffer.force();
+        if (!temp.renameTo(file)) {
+            buffer = null;
+            throw new IOException("Could not replace history file " + file);
+        }
+    }
+
+    /**
+     * Map the history file at the capacity stored in its header, or DEFAULT_CAPACITY if
+     * there is no valid file yet. Keeps the current capacity if already open.
+     */
+    public synchronized void open() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        if (file.exists()) {
+            map(file, file.length());
+            if (isValid()) {
+                this.capacity = buffer.getInt(OFFSET_CAPACITY);
+                return;
+            }
+            buffer = null;
+        }
+        open(DEFAULT_CAPACITY);
+    }
+
+    public synchronized boolean isOpen() {
+        return buffer != null;
+    }
+
+    /**
+     * Flush and unmap the history file
+     */
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    /**
+     * Append an entry, skipping it if it repeats the newest entry
+     */
+    public synchronized void record(byte type, String mimeType, String data) {
+        if (buffer == null || data == null) {
+            return;
+        }
+        if (count() > 0) {
+            Entry newest = readSlot(slotIndex(0));
+            if (newest != null && newest.type == type && !newest.truncated && newest.data.equals(data)) {
+                return;
+            }
+        }
+        write(System.currentTimeMillis(), type, mimeType, data);
+    }
+
+    public synchronized void clear() {
+        if (buffer != null) {
+            buffer.putInt(OFFSET_HEAD, 0);
+            buffer.putInt(OFFSET_COUNT, 0);
+        }
+    }
+
+    public synchronized int size() {
+        return buffer != null ? count() : 0;
+    }
+
+    /**
+     * Page of entries for JS, newest first
+     */
+    public synchronized WritableArray getPage(int offset, int limit) {
+        WritableArray result = Arguments.createArray();
+        if (buffer == null) {
+            return result;
+        }
+        for (Entry entry : read(offset, limit)) {
+            WritableMap map = Arguments.createMap();
+            map.putDouble("timestamp", entry.timestamp);
+            map.putString("type", entry.type < TYPE_NAMES.length ? TYPE_NAMES[entry.type] : "unknown");
+            map.putString("mimeType", entry.mimeType);
+            map.putString("data", entry.data);
+            map.putBoolean("truncated", entry.truncated);
+            result.pushMap(map);
+        }
+        return result;
+    }
+
+    private void map(File target, long size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(target, "rw")) {
+            randomAccessFile.setLength(size);
+            // The mapping stays valid after the channel is closed
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private boolean isValid() {
+        if (buffer.capacity() < HEADER_SIZE
+                || buffer.getInt(OFFSET_MAGIC) != MAGIC
+                || buffer.getInt(OFFSET_VERSION) != VERSION
+                || buffer.getInt(OFFSET_SLOT_SIZE) != SLOT_SIZE) {
+            return false;
+        }
+        int storedCapacity = buffer.getInt(OFFSET_CAPACITY);
+        return storedCapacity > 0 && buffer.capacity() >= HEADER_SIZE + (long) storedCapacity * SLOT_SIZE;
+    }
+
+    private int count() {
+        return Math.max(0, Math.min(buffer.getInt(OFFSET_COUNT), capacity));
+    }
+
+    /**
+     * Slot index of the entry at the given age (0 = newest)
+     */
+    private int slotIndex(int age) {
+        int head = buffer.getInt(OFFSET_HEAD);
+        return ((head - 1 - age) % capacity + capacity) % capacity;
+    }
+
+    private List<Entry> read(int offset, int limit) {
+        int total = count();
+        int end = Math.min(total, offset + Math.max(limit, 0));
+        List<Entry> entries = new ArrayList<>(Math.max(end - offset, 0));
+        for (int age = Math.max(offset, 0); age < end; age++) {
+            Entry entry = readSlot(slotIndex(age));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private void write(long timestamp, byte type, String mimeType, String data) {
+        byte[] mimeBytes = truncateUtf8(mimeType != null ? mimeType : "", MAX_MIME_BYTES);
+        byte[] fullData = data.getBytes(StandardCharsets.UTF_8);
+        byte[] dataBytes = truncateUtf8(data, MAX_DATA_BYTES);
+        boolean truncated = dataBytes.length < fullData.length;
+
+        int head = buffer.getInt(OFFSET_HEAD);
+        ByteBuffer slot = slotBuffer(head);
+        slot.putLong(timestamp);
+        slot.put(type);
+        slot.put(truncated ? FLAG_TRUNCATED : 0);
+        slot.putShort((short) mimeBytes.length);
+        slot.putInt(dataBytes.length);
+        slot.put(mimeBytes);
+        slot.position(SLOT_HEADER_SIZE + MAX_MIME_BYTES);
+        slot.put(dataBytes);
+
+        buffer.putInt(OFFSET_HEAD, (head + 1) % capacity);
+        buffer.putInt(OFFSET_COUNT, Math.min(count() + 1, capacity));
+    }
+
+    /**
+     * Decode a slot, or return null if its lengths are corrupt
+     */
+    private Entry readSlot(int index) {
+        ByteBuffer slot = slotBuffer(index);
+        long timestamp = slot.getLong();
+        byte type = slot.get();
+        byte flags = slot.get();
+        int mimeLength = slot.getShort();
+        int dataLength = slot.getInt();
+        if (mimeLength < 0 || mimeLength > MAX_MIME_BYTES || dataLength < 0 || dataLength > MAX_DATA_BYTES) {
+            return null;
+        }
+
+        byte[] mimeBytes = new byte[mimeLength];
+        slot.get(mimeBytes);
+        slot.position(SLOT_HEADER_SIZE + MAX_MIME_BYTES);
+        byte[] dataBytes = new byte[dataLength];
+        slot.get(dataBytes);
+
+        return new Entry(timestamp, type,
+                new String(mimeBytes, StandardCharsets.UTF_8),
+                new String(dataBytes, StandardCharsets.UTF_8),
+                (flags & FLAG_TRUNCATED) != 0);
+    }
+
+    private ByteBuffer slotBuffer(int index) {
+        ByteBuffer slot = buffer.duplicate();
+        int start = HEADER_SIZE + index * SLOT_SIZE;
+        slot.position(start);
+        slot.limit(start + SLOT_SIZE);
+        return slot.slice();
+    }
+
+    /**
+     * Encode as UTF-8, cutting at a character boundary so the result fits maxBytes
+     */
+    private static byte[] truncateUtf8(String value, int maxBytes) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        int end = maxBytes;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--; // Back up to the start of a multi-byte sequence
+        }
+        return Arrays.copyOf(bytes, end);
+    }
+}
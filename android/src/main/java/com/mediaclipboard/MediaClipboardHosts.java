@@ -0,0 +1,287 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-host download health. A concurrency limit keeps one slow host from tying up
+ * every worker thread, and a circuit breaker fails downloads fast once a host keeps
+ * failing, letting a single trial request through after a cool-off period.
+ */
+public class MediaClipboardHosts {
+
+    public static final int DEFAULT_MAX_CONCURRENT_PER_HOST = 4;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;  // Consecutive failures that open the circuit
+    public static final long DEFAULT_OPEN_MS = 30000;        // How long an open circuit rejects downloads
+    private static final int MAX_TRACKED_HOSTS = 64;
+    private static final double LATENCY_EWMA_WEIGHT = 0.2;
+
+    public static final String CLOSED = "closed";
+    public static final String OPEN = "open";
+    public static final String HALF_OPEN = "halfOpen";
+
+    /**
+     * Semaphore whose permit count can shrink while permits are held
+     */
+    private static class HostPermits extends Semaphore {
+        HostPermits(int permits) {
+            super(permits, true);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    /**
+     * Download state and counters for one host
+     */
+    private static class Host {
+        final HostPermits permits;
+        int maxConcurrent;
+        int active; // Leases held or being waited for; a host with any is never evicted
+        String state = CLOSED;
+        int consecutiveFailures;
+        long openUntil;
+        boolean trialInFlight;
+        long successes;
+        long failures;
+        long retries;
+        long rejected;
+        double latencyMs;
+
+        Host(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new HostPermits(maxConcurrent);
+        }
+
+        /**
+         * Change the concurrency limit. Running downloads keep their slots; a lower
+         * limit admits new ones only once enough of them have finished.
+         */
+        void setMaxConcurrent(int max) {
+            if (max > maxConcurrent) {
+                permits.release(max - maxConcurrent);
+            } else if (max < maxConcurrent) {
+                permits.reduce(maxConcurrent - max);
+            }
+            maxConcurrent = max;
+        }
+    }
+
+    /**
+     * Permission to run one request against a host. Closing it frees the slot and,
+     * if markSuccess or markFailure was called, updates the host's health.
+     */
+    public class Lease implements Closeable {
+        private final Host host;
+        private final boolean trial;
+        private final long startedAt = System.nanoTime();
+        private Boolean healthy;
+        private boolean closed;
+
+        Lease(Host host, boolean trial) {
+            this.host = host;
+            this.trial = trial;
+        }
+
+        /**
+         * The host answered; any response below 500 other than 429 counts
+         */
+        public void markSuccess() {
+            healthy = true;
+        }
+
+        /**
+         * The host failed to answer or answered with a server error
+         */
+        public void markFailure() {
+            healthy = false;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            host.permits.release();
+            finish(this);
+        }
+    }
+
+    private final Map<String, Host> hosts = new LinkedHashMap<>(16, 0.75f, true); // Access order for LRU
+    private volatile int maxConcurrentPerHost = DEFAULT_MAX_CONCURRENT_PER_HOST;
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile long openMs = DEFAULT_OPEN_MS;
+
+    /**
+     * Update limits. Tracked hosts keep their health and take the new concurrency
+     * limit right away; downloads already running keep their slots.
+     */
+    public synchronized void configure(int maxConcurrentPerHost, int failureThreshold, long openMs) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        for (Host host : hosts.values()) {
+            host.setMaxConcurrent(maxConcurrentPerHost);
+        }
+    }
+
+    public int getMaxConcurrentPerHost() {
+        return maxConcurrentPerHost;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenMs() {
+        return openMs;
+    }
+
+    /**
+     * Wait up to waitMs for a free slot on a host. Fails immediately while the host's
+     * circuit is open, or while its single half-open trial request is still running.
+     */
+    public Lease acquire(String hostName, long waitMs) throws InterruptedIOException, MediaClipboardHttp.DownloadException {
+        Host host;
+        boolean trial = false;
+        synchronized (this) {
+            host = getHost(hostName);
+            long now = System.currentTimeMillis();
+            if (OPEN.equals(host.state)) {
+                if (now < host.openUntil) {
+                    host.rejected++;
+                    throw new MediaClipboardHttp.DownloadException("Circuit open for " + hostName + " after " + host.consecutiveFailures
+                            + " consecutive failures; retrying in " + (host.openUntil - now) + " ms", -1);
+                }
+                host.state = HALF_OPEN;
+            }
+            if (HALF_OPEN.equals(host.state)) {
+                if (host.trialInFlight) {
+                    host.rejected++;
+                    throw new MediaClipboardHttp.DownloadException("Circuit half-open for " + hostName + ", waiting on a trial download", -1);
+                }
+                host.trialInFlight = true;
+                trial = true;
+            }
+            host.active++;
+        }
+
+        boolean acquired = false;
+        int limit = 0;
+        try {
+            acquired = host.permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a download slot on " + hostName);
+        } finally {
+            if (!acquired) {
+                synchronized (this) {
+                    host.active--;
+                    host.rejected++;
+                    limit = host.maxConcurrent;
+                    if (trial) {
+                        host.trialInFlight = false;
+                    }
+                }
+            }
+        }
+        if (!acquired) {
+            throw new MediaClipboardHttp.DownloadException("Too many concurrent downloads from " + hostName
+                    + " (limit " + limit + ")", -1);
+        }
+        return new Lease(host, trial);
+    }
+
+    /**
+     * Count a retry against a host
+     */
+    public synchronized void recordRetry(String hostName) {
+        getHost(hostName).retries++;
+    }
+
+    private synchronized void finish(Lease lease) {
+        Host host = lease.host;
+        host.active--;
+        if (lease.trial) {
+            host.trialInFlight = false;
+        }
+        if (lease.healthy == null) {
+            return; // Aborted on our side, e.g. over quota; says nothing about the host
+        }
+        if (lease.healthy) {
+            double elapsedMs = (System.nanoTime() - lease.startedAt) / 1e6;
+            host.latencyMs = host.successes == 0 ? elapsedMs : host.latencyMs + LATENCY_EWMA_WEIGHT * (elapsedMs - host.latencyMs);
+            host.successes++;
+            host.consecutiveFailures = 0;
+            host.state = CLOSED;
+        } else {
+            host.failures++;
+            host.consecutiveFailures++;
+            if (lease.trial || host.consecutiveFailures >= failureThreshold) {
+                host.state = OPEN;
+                host.openUntil = System.currentTimeMillis() + openMs;
+                android.util.Log.w("MediaClipboard", "Circuit opened after " + host.consecutiveFailures + " consecutive download failures");
+            }
+        }
+    }
+
+    private Host getHost(String hostName) {
+        Host host = hosts.get(hostName);
+        if (host == null) {
+            host = new Host(maxConcurrentPerHost);
+            hosts.put(hostName, host);
+            evictIdleHosts(host);
+        }
+        return host;
+    }
+
+    /**
+     * Forget least recently used hosts beyond MAX_TRACKED_HOSTS, except the given one.
+     * Hosts with leases held or awaited are kept: a fresh entry for them would have
+     * its own permits and let more downloads through than the limit allows.
+     */
+    private void evictIdleHosts(Host keep) {
+        Iterator<Host> iterator = hosts.values().iterator();
+        while (hosts.size() > MAX_TRACKED_HOSTS && iterator.hasNext()) {
+            Host candidate = iterator.next();
+            if (candidate != keep && candidate.active == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Snapshot of per-host health for JS, keyed by host
+     */
+    public synchronized WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+            Host host = entry.getValue();
+            WritableMap hostMap = Arguments.createMap();
+            hostMap.putString("state", OPEN.equals(host.state) && now >= host.openUntil ? HALF_OPEN : host.state);
+            hostMap.putInt("inFlight", host.maxConcurrent - host.permits.availablePermits());
+            hostMap.putInt("maxConcurrent", host.maxConcurrent);
+            hostMap.putDouble("successes", host.successes);
+            hostMap.putDouble("failures", host.failures);
+            hostMap.putInt("consecutiveFailures", host.consecutiveFailures);
+            hostMap.putDouble("retries", host.retries);
+            hostMap.putDouble("rejected", host.rejected);
+            hostMap.putDouble("latencyMs", host.latencyMs);
+            hostMap.putDouble("retryInMs", OPEN.equals(host.state) ? Math.max(0, host.openUntil - now) : 0);
+            map.putMap(entry.getKey(), hostMap);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,188 @@
+package com.mediaclipboard;
+
+import java.util.Locale;
+
+/**
+ * Single-pass HTML to plain text conversion for the text/plain fallback of HTML clips.
+ * Not a full HTML parser: tags are dropped, script/style bodies skipped, block
+ * elements become line breaks and common entities are decoded.
+ */
+public final class MediaClipboardHtml {
+
+    private MediaClipboardHtml() {
+    }
+
+    /**
+     * Convert an HTML document or fragment to readable plain text
+     */
+    public static String toPlainText(String html) {
+        int length = html.length();
+        StringBuilder text = new StringBuilder(Math.min(length, 1 << 16));
+        boolean pendingSpace = false;
+        int i = 0;
+
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '<' && i + 1 < length && isTagStart(html.charAt(i + 1))) {
+                int tagEnd = html.indexOf('>', i + 1);
+                if (tagEnd < 0) {
+                    break; // Unterminated tag, drop the rest
+                }
+                if (html.startsWith("<!--", i)) {
+                    int commentEnd = html.indexOf("-->", i + 4);
+                    i = commentEnd < 0 ? length : commentEnd + 3;
+                    continue;
+                }
+
+                String name = tagName(html, i + 1, tagEnd);
+                if ((name.equals("script") || name.equals("style")) && html.charAt(i + 1) != '/') {
+                    int closeStart = indexOfIgnoreCase(html, "</" + name, tagEnd + 1);
+                    int closeEnd = closeStart < 0 ? -1 : html.indexOf('>', closeStart);
+                    i = closeEnd < 0 ? length : closeEnd + 1;
+                    continue;
+                }
+                if (isLineBreak(name)) {
+                    trimTrailingSpaces(text);
+                    if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                        text.append('\n');
+                    } else if (name.equals("br")) {
+                        text.append('\n'); // Consecutive <br> tags keep blank lines
+                    }
+                    pendingSpace = false;
+                } else if ((name.equals("td") || name.equals("th")) && text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                    pendingSpace = true; // Separate table cells on the same row
+                }
+                i = tagEnd + 1;
+                continue;
+            }
+
+            if (c == '&') {
+                int entityEnd = html.indexOf(';', i + 1);
+                if (entityEnd > 0 && entityEnd - i <= 10) {
+                    String decoded = decodeEntity(html.substring(i + 1, entityEnd));
+                    if (decoded != null) {
+                        if (pendingSpace) {
+                            text.append(' ');
+                            pendingSpace = false;
+                        }
+                        text.append(decoded);
+                        i = entityEnd + 1;
+                        continue;
+                    }
+                }
+            }
+
+            if (Character.isWhitespace(c)) {
+                // Collapse runs of whitespace the way a browser renders them
+                if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+                    pendingSpace = true;
+                }
+            } else {
+                if (pendingSpace) {
+                    text.append(' ');
+                    pendingSpace = false;
+                }
+                text.append(c);
+            }
+            i++;
+        }
+
+        return text.toString().trim();
+    }
+
+    private static boolean isTagStart(char c) {
+        return Character.isLetter(c) || c == '/' || c == '!';
+    }
+
+    private static String tagName(String html, int start, int end) {
+        int i = start;
+        if (i < end && (html.charAt(i) == '/' || html.charAt(i) == '!')) {
+            i++;
+        }
+        int nameStart = i;
+        while (i < end && Character.isLetterOrDigit(html.charAt(i))) {
+            i++;
+        }
+        return html.substring(nameStart, i).toLowerCase(Locale.US);
+    }
+
+    private static boolean isLineBreak(String name) {
+        switch (name) {
+            case "br":
+            case "p":
+            case "div":
+            case "li":
+            case "tr":
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+            case "ul":
+            case "ol":
+            case "table":
+            case "blockquote":
+            case "pre":
+            case "hr":
+            case "section":
+            case "article":
+            case "header":
+            case "footer":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "nbsp":
+                return " ";
+            default:
+                break;
+        }
+        if (entity.length() > 1 && entity.charAt(0) == '#') {
+            try {
+                int codePoint = entity.charAt(1) == 'x' || entity.charAt(1) == 'X'
+                        ? Integer.parseInt(entity.substring(2), 16)
+                        : Integer.parseInt(entity.substring(1));
+                if (Character.isValidCodePoint(codePoint)) {
+                    return new String(Character.toChars(codePoint));
+                }
+            } catch (NumberFormatException e) {
+                // Not a numeric entity, keep it as text
+            }
+        }
+        return null;
+    }
+
+    private static void trimTrailingSpaces(StringBuilder text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        text.setLength(end);
+    }
+
+    private static int indexOfIgnoreCase(String haystack, String needle, int from) {
+        int last = haystack.length() - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (haystack.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
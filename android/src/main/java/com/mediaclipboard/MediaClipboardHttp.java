@@ -0,0 +1,267 @@
+package com.mediaclipboard;
+
+import com.facebook.react.modules.network.OkHttpClientProvider;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Shared HTTP client for downloading remote media.
+ * Built on React Native's OkHttp client so downloads share its connection pool
+ * (keep-alive, HTTP/2 multiplexing) and get transparent gzip decoding.
+ * Requests go through per-host limits and circuit breakers, and transient
+ * failures are retried with jittered exponential backoff.
+ */
+public class MediaClipboardHttp {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000; // 10 second timeout
+    public static final int DEFAULT_READ_TIMEOUT_MS = 30000;    // 30 second read timeout
+    public static final int DEFAULT_MAX_REDIRECTS = 5;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long BASE_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 2000;
+
+    private final OkHttpClient baseClient;
+    private volatile OkHttpClient client;
+    private volatile int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private volatile int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+    private volatile int maxRedirects = DEFAULT_MAX_REDIRECTS;
+    private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+    private final MediaClipboardHosts hosts = new MediaClipboardHosts();
+
+    /**
+     * Raised for any failed download, including non-2xx responses
+     */
+    public static class DownloadException extends IOException {
+        private final int statusCode;
+
+        public DownloadException(String message, int statusCode) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public DownloadException(String message, Throwable cause) {
+            super(message, cause);
+            this.statusCode = -1;
+        }
+
+        /**
+         * HTTP status code, or -1 if the request never got a response
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Worth retrying: the connection broke, or the server was overloaded or erred.
+         * Timeouts are not retried, since a host that is slow now will likely stay slow
+         * and the circuit breaker deals with it. Failures raised before a request was
+         * sent, such as an open circuit, have no cause and are not retried either.
+         */
+        public boolean isRetryable() {
+            if (statusCode == -1) {
+                return getCause() instanceof IOException && !(getCause() instanceof InterruptedIOException);
+            }
+            return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+        }
+    }
+
+    /**
+     * Result of a completed download
+     */
+    public static class DownloadResult {
+        public final String finalUrl;
+        public final String contentType;
+        public final long bytes;
+        public final String sha256; // Hex digest computed while the body was written
+
+        DownloadResult(String finalUrl, String contentType, long bytes, String sha256) {
+            this.finalUrl = finalUrl;
+            this.contentType = contentType;
+            this.bytes = bytes;
+            this.sha256 = sha256;
+        }
+    }
+
+    public MediaClipboardHttp() {
+        this(OkHttpClientProvider.getOkHttpClient());
+    }
+
+    MediaClipboardHttp(OkHttpClient baseClient) {
+        this.baseClient = baseClient;
+        configure(DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS, DEFAULT_MAX_REDIRECTS);
+    }
+
+    /**
+     * Update timeouts and redirect limit. Derived clients share the base client's
+     * connection pool and dispatcher, so reconfiguring never drops pooled connections.
+     */
+    public synchronized void configure(int connectTimeoutMs, int readTimeoutMs, int maxRedirects) {
+        this.client = baseClient.newBuilder()
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .followRedirects(false) // Redirects are followed manually to enforce maxRedirects
+                .followSslRedirects(false)
+                .build();
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxRedirects = maxRedirects;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public int getMaxRedirects() {
+        return maxRedirects;
+    }
+
+    /**
+     * Update retry and per-host limits
+     */
+    public void configureResilience(int maxRetries, int maxConcurrentPerHost, int failureThreshold, long openMs) {
+        this.maxRetries = maxRetries;
+        hosts.configure(maxConcurrentPerHost, failureThreshold, openMs);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public MediaClipboardHosts getHosts() {
+        return hosts;
+    }
+
+    /**
+     * Download a URL into the target file, failing fast on non-2xx responses
+     * and on bodies larger than maxBytes (pass MediaClipboardStorage.UNLIMITED for no limit).
+     * Connection failures, 408, 429 and 5xx responses are retried up to maxRetries times.
+     * The target is deleted if the download does not complete.
+     */
+    public DownloadResult download(String url, File target, long maxBytes) throws IOException {
+        HttpUrl startUrl = HttpUrl.parse(url);
+        if (startUrl == null) {
+            throw new DownloadException("Invalid URL: " + url, -1);
+        }
+
+        int retries = maxRetries;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return downloadOnce(startUrl, target, maxBytes);
+            } catch (DownloadException e) {
+                if (attempt >= retries || !e.isRetryable()) {
+                    throw e;
+                }
+                // Full jitter keeps clients that failed together from retrying together
+                long delayMs = ThreadLocalRandom.current().nextLong(Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt) + 1);
+                android.util.Log.w("MediaClipboard", e.getMessage() + "; retry " + (attempt + 1) + " of " + retries + " in " + delayMs + " ms");
+                hosts.recordRetry(getHostKey(startUrl));
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted before retrying " + url);
+                }
+            }
+        }
+    }
+
+    /**
+     * One attempt at a download, following redirects. Every request holds a lease on
+     * its host for as long as the body is being read.
+     */
+    private DownloadResult downloadOnce(HttpUrl startUrl, File target, long maxBytes) throws IOException {
+        OkHttpClient httpClient = client;
+        HttpUrl currentUrl = startUrl;
+        int redirects = 0;
+        while (true) {
+            Request request = new Request.Builder().url(currentUrl).build();
+            try (MediaClipboardHosts.Lease lease = hosts.acquire(getHostKey(currentUrl), connectTimeoutMs)) {
+                try (Response response = httpClient.newCall(request).execute()) {
+                    if (response.code() >= 500 || response.code() == 429) {
+                        lease.markFailure();
+                    } else {
+                        lease.markSuccess();
+                    }
+
+                    if (response.isRedirect()) {
+                        String location = response.header("Location");
+                        HttpUrl nextUrl = location != null ? currentUrl.resolve(location) : null;
+                        if (nextUrl == null) {
+                            throw new DownloadException("Redirect without a valid Location from " + currentUrl, response.code());
+                        }
+                        if (++redirects > maxRedirects) {
+                            throw new DownloadException("Too many redirects (" + redirects + ") for " + startUrl, response.code());
+                        }
+                        currentUrl = nextUrl;
+                        continue;
+                    }
+
+                    if (!response.isSuccessful()) {
+                        throw new DownloadException("HTTP " + response.code() + " while downloading " + currentUrl, response.code());
+                    }
+
+                    ResponseBody body = response.body();
+                    if (body == null) {
+                        throw new DownloadException("Empty response body from " + currentUrl, response.code());
+                    }
+
+                    if (maxBytes != MediaClipboardStorage.UNLIMITED && body.contentLength() > maxBytes) {
+                        throw new MediaClipboardStorage.QuotaExceededException("Download of " + body.contentLength() + " bytes exceeds the remaining storage quota of " + maxBytes + " bytes");
+                    }
+
+                    MessageDigest digest = MediaClipboardUtils.newSha256();
+                    long totalBytes = writeBody(body, target, maxBytes, digest);
+                    return new DownloadResult(currentUrl.toString(), response.header("Content-Type"), totalBytes, MediaClipboardUtils.toHex(digest.digest()));
+                } catch (DownloadException | MediaClipboardStorage.QuotaExceededException e) {
+                    target.delete();
+                    throw e;
+                } catch (IOException e) {
+                    lease.markFailure(); // No answer, or the body was cut off or stalled
+                    target.delete();
+                    throw new DownloadException("Failed to download " + currentUrl + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Key per-host state by host name, adding the port only when it is not the default
+     */
+    private static String getHostKey(HttpUrl url) {
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? url.host() : url.host() + ":" + url.port();
+    }
+
+    /**
+     * Stream the body to a partial file and rename it into place once complete
+     */
+    private long writeBody(ResponseBody body, File target, long maxBytes, MessageDigest digest) throws IOException {
+        File partialFile = MediaClipboardUtils.getPartialFile(target);
+        long totalBytes;
+        try (InputStream inputStream = body.byteStream();
+             FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+            totalBytes = MediaClipboardUtils.copyStream(inputStream, outputStream, digest, body.contentLength(), maxBytes);
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        }
+        MediaClipboardUtils.commitPartialFile(partialFile, target);
+        return totalBytes;
+    }
+}
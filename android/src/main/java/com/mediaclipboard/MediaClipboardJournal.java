@@ -0,0 +1,107 @@
+package com.mediaclipboard;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent record of the MediaStore rows this module creates, so rows left behind
+ * by a crash can be found again without querying MediaStore.
+ *
+ * A row is journaled as pending from insert until its content is fully written and
+ * IS_PENDING is cleared, then as staged until it is deleted. Writes use commit() so
+ * the entry is on disk before the row is filled; callers are always on a worker thread.
+ */
+public class MediaClipboardJournal {
+
+    private static final String PREFS_NAME = "mediaclipboard_journal";
+    private static final String PENDING_PREFIX = "pending:";
+    private static final String STAGED_PREFIX = "staged:";
+
+    private final SharedPreferences preferences;
+
+    /**
+     * A committed MediaStore row from the journal
+     */
+    public static class StagedRow {
+        public final long createdAt;
+        public final long bytes;
+
+        StagedRow(long createdAt, long bytes) {
+            this.createdAt = createdAt;
+            this.bytes = bytes;
+        }
+    }
+
+    public MediaClipboardJournal(Context context) {
+        this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Record a row that was inserted with IS_PENDING and is about to be written
+     */
+    public void beginPending(Uri uri) {
+        preferences.edit()
+                .putLong(PENDING_PREFIX + uri, System.currentTimeMillis())
+                .commit();
+    }
+
+    /**
+     * Move a row from pending to staged once its content is complete
+     */
+    public void commitStaged(Uri uri, long bytes) {
+        preferences.edit()
+                .remove(PENDING_PREFIX + uri)
+                .putString(STAGED_PREFIX + uri, System.currentTimeMillis() + ":" + bytes)
+                .commit();
+    }
+
+    /**
+     * Forget a row after it was deleted
+     */
+    public void remove(Uri uri) {
+        preferences.edit()
+                .remove(PENDING_PREFIX + uri)
+                .remove(STAGED_PREFIX + uri)
+                .commit();
+    }
+
+    /**
+     * Rows that were never completed, e.g. because the process died mid-copy
+     */
+    public List<Uri> getPending() {
+        List<Uri> pending = new ArrayList<>();
+        for (String key : preferences.getAll().keySet()) {
+            if (key.startsWith(PENDING_PREFIX)) {
+                pending.add(Uri.parse(key.substring(PENDING_PREFIX.length())));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Completed rows that may still be on the clipboard
+     */
+    public Map<Uri, StagedRow> getStaged() {
+        Map<Uri, StagedRow> staged = new HashMap<>();
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            if (!entry.getKey().startsWith(STAGED_PREFIX) || !(entry.getValue() instanceof String)) {
+                continue;
+            }
+            String[] parts = ((String) entry.getValue()).split(":");
+            try {
+                staged.put(Uri.parse(entry.getKey().substring(STAGED_PREFIX.length())),
+                        new StagedRow(Long.parseLong(parts[0]), parts.length > 1 ? Long.parseLong(parts[1]) : 0));
+            } catch (NumberFormatException e) {
+                // Corrupt entry, treat as a completed row of unknown size
+                staged.put(Uri.parse(entry.getKey().substring(STAGED_PREFIX.length())), new StagedRow(0, 0));
+            }
+        }
+        return staged;
+    }
+}
@@ -7,44 +7,96 @@ import android.content.ContentResolver;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Environment;
 import android.provider.MediaStore;
 import android.webkit.MimeTypeMap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import android.util.Base64;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import android.content.ClipDescription;
 
 public class MediaClipboardModule extends ReactContextBaseJavaModule {
 
     private static final String MODULE_NAME = "MediaClipboard";
+    private static final int MAX_INLINE_HTML_CHARS = 100 * 1024; // Larger HTML is staged so the binder transaction stays small
+    private static final long SHUTDOWN_CLEANUP_TIMEOUT_MS = 60000; // How long invalidate() waits for queued copies before a final cleanup
     private ClipboardManager clipboardManager;
     private ExecutorService executorService;
     private List<File> temporaryFiles; // Track temporary files for cleanup
+    private MediaClipboardAssets assets; // Bundled APK assets
+    private MediaClipboardHttp httpClient; // Shared pooled client for remote media
+    private MediaClipboardStorage storage; // Disk quota and write accounting
+    private Map<Uri, Long> stagedMediaUris; // MediaStore rows we created -> creation time
+    private Map<Uri, File> stagedFileUris; // External cache copies shared by content URI -> file
+    private MediaClipboardJournal journal; // Persists MediaStore rows across process death
+    private MediaClipboardPrefetcher prefetcher; // Background staging ahead of copy
+    private MediaClipboardHistory history; // Opt-in clipboard history
+    private MediaClipboardPreviews previews; // Cached video/audio poster images
+    private MediaClipboardStrategy strategy; // Picks and learns the cheapest staging route
+    private ClipboardManager.OnPrimaryClipChangedListener historyListener;
 
     public MediaClipboardModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.clipboardManager = (ClipboardManager) reactContext.getSystemService(Context.CLIPBOARD_SERVICE);
         this.executorService = Executors.newCachedThreadPool();
-        this.temporaryFiles = new ArrayList<>();
+        this.temporaryFiles = Collections.synchronizedList(new ArrayList<>());
+        this.assets = new MediaClipboardAssets(reactContext);
+        this.httpClient = new MediaClipboardHttp();
+        this.storage = new MediaClipboardStorage();
+        MediaClipboardFormats.shared().setStorage(storage);
+        this.stagedMediaUris = new ConcurrentHashMap<>();
+        this.stagedFileUris = new ConcurrentHashMap<>();
+        this.journal = new MediaClipboardJournal(reactContext);
+        this.prefetcher = new MediaClipboardPrefetcher(new MediaClipboardPrefetcher.Stager() {
+            @Override
+            public MediaClipboardPrefetcher.StagedMedia stage(String source) throws Exception {
+                return stageForPrefetch(source);
+            }
+
+            @Override
+            public void discard(MediaClipboardPrefetcher.StagedMedia media) {
+                discardPrefetched(media);
+            }
+        });
+        this.history = new MediaClipboardHistory(new File(reactContext.getFilesDir(), "mediaclipboard_history.bin"));
+        this.historyListener = this::recordPrimaryClip;
+        this.previews = new MediaClipboardPreviews();
+        this.strategy = new MediaClipboardStrategy();
+        // Snapshot before any copy can start, so recovery never touches this process's own files
+        StagedMediaSnapshot leftovers = snapshotStagedMedia();
+        this.executorService.execute(() -> recoverStagedMedia(leftovers));
     }
 
     @NonNull
@@ -64,17 +116,105 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void copyHtml(String html, @Nullable String plainText, Promise promise) {
+        executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
+            try {
+                // Strip natively so large documents never round-trip through JS
+                String text = plainText != null ? plainText : MediaClipboardHtml.toPlainText(html);
+                ClipData clip;
+                if (html.length() + text.length() <= MAX_INLINE_HTML_CHARS) {
+                    session.setPayloadBytes(html.getBytes(StandardCharsets.UTF_8).length); // Bytes, as for staged documents
+                    session.setStagingPath("inline");
+                    clip = ClipData.newHtmlText("html", text, html);
+                } else {
+                    clip = createStagedHtmlClip(html, text, session);
+                }
+
+                if (clip != null) {
+                    clipboardManager.setPrimaryClip(clip);
+                    promise.resolve(null);
+                } else {
+                    promise.reject("URI_CREATION_ERROR", "Failed to create content URI for HTML");
+                }
+            } catch (Exception e) {
+                rejectCopyError(promise, "COPY_HTML_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
+            }
+        });
+    }
+
+    /**
+     * Stage a large HTML document as a text/html file and share it by URI.
+     * The plain text goes inline only if it is small enough; otherwise paste
+     * targets coerce the URI to text themselves.
+     */
+    private ClipData createStagedHtmlClip(String html, String text, MediaClipboardStorage.CopySession session) throws IOException {
+        byte[] htmlBytes = html.getBytes(StandardCharsets.UTF_8);
+        session.setPayloadBytes(htmlBytes.length);
+        session.reserve(htmlBytes.length);
+        cleanupOldTempFiles();
+
+        File htmlFile = new File(getStagingDir(), createTempFileName("clipboard_html", "html"));
+        temporaryFiles.add(htmlFile); // Add to list for cleanup
+        MediaClipboardUtils.writeFileAtomically(htmlFile, htmlBytes);
+        session.recordWrite(htmlFile, htmlBytes.length);
+        session.setStagingPath("fileProvider");
+
+        Uri htmlUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), htmlFile);
+        if (htmlUri == null) {
+            return null;
+        }
+        boolean inlineText = text.length() <= MAX_INLINE_HTML_CHARS;
+        String[] mimeTypes = inlineText
+                ? new String[]{ClipDescription.MIMETYPE_TEXT_HTML, ClipDescription.MIMETYPE_TEXT_PLAIN}
+                : new String[]{ClipDescription.MIMETYPE_TEXT_HTML};
+        ClipData.Item item = new ClipData.Item(inlineText ? text : null, null, null, htmlUri);
+        android.util.Log.d("MediaClipboard", "Staged " + htmlBytes.length + " bytes of HTML at: " + htmlFile.getAbsolutePath());
+        return new ClipData(new ClipDescription("html", mimeTypes), item);
+    }
+
     @ReactMethod
     public void copyImage(String imagePath, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
                 // Handle base64 data URI
                 if (imagePath.startsWith("data:image/")) {
-                    handleBase64Image(imagePath, options, promise);
+                    handleBase64Image(imagePath, options, promise, session);
+                    return;
+                }
+                List<String> alternateFormats = getAlternateFormats(options);
+
+                // Already staged by prefetch: only setPrimaryClip is left to do
+                MediaClipboardPrefetcher.StagedMedia staged = prefetcher.get(imagePath);
+                if (staged != null && staged.clipboardUri != null && alternateFormats.isEmpty() && isClipboardUriValid(staged.clipboardUri)) {
+                    File stagedFile = new File(staged.localPath);
+                    session.setPayloadBytes(stagedFile.length()); // staged.bytes counts every write, including the compatibility copy
+                    session.setStagingPath("prefetched");
+                    session.setContentHash(staged.contentHash);
+                    try {
+                        verifyIntegrity(options, session, stagedFile.length(), stagedFile);
+                    } catch (MediaClipboardUtils.IntegrityException e) {
+                        if (!prefetcher.evictFailed(staged.localPath)) {
+                            discardPrefetched(staged);
+                        }
+                        throw e;
+                    }
+                    clipboardManager.setPrimaryClip(ClipData.newUri(getReactApplicationContext().getContentResolver(), "image", staged.clipboardUri));
+                    promise.resolve(null);
                     return;
                 }
                 
-                String resolvedPath = resolveAssetPath(imagePath);
+                String resolvedPath;
+                if (staged != null) {
+                    session.setContentHash(staged.contentHash);
+                    resolvedPath = staged.localPath;
+                } else {
+                    resolvedPath = resolveAssetPath(imagePath, session);
+                }
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (imagePath.startsWith("./") || imagePath.startsWith("../") || imagePath.contains("/../") || imagePath.contains("/./"))) {
@@ -88,14 +228,18 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
+                session.setPayloadBytes(imageFile.length());
                 Uri imageUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), imageFile);
                 if (imageUri != null) {
                     String mimeType = MediaClipboardUtils.getMimeType(imageFile.getAbsolutePath());
                     
                     // Create ClipData with proper permissions for FileProvider URIs
-                    ClipData clip = createClipDataForImage(imageUri, mimeType);
+                    ClipData clip = alternateFormats.isEmpty()
+                            ? createClipDataForImage(imageFile, imageUri, mimeType, session)
+                            : createClipDataWithAlternates(imageFile, imageUri, mimeType, alternateFormats, session);
                     
                     if (clip != null) {
+                        verifyStagedIntegrity(options, session, imageFile, clip);
                         clipboardManager.setPrimaryClip(clip);
                         
                         // Show success notification if requested
@@ -111,7 +255,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for image");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_IMAGE_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_IMAGE_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -119,7 +265,7 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     /**
      * Handle base64 data URI images
      */
-    private void handleBase64Image(String dataUri, ReadableMap options, Promise promise) {
+    private void handleBase64Image(String dataUri, ReadableMap options, Promise promise, MediaClipboardStorage.CopySession session) {
         try {
             // Clean up old temp files before creating new ones
             cleanupOldTempFiles();
@@ -175,26 +321,70 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                 return;
             }
             
-            // Create temporary file
-            File cacheDir = getReactApplicationContext().getCacheDir();
-            String filename = createTempFileName("clipboard_image", extension);
-            File tempFile = new File(cacheDir, filename);
-            temporaryFiles.add(tempFile); // Add to list for cleanup
-            
-            // Write decoded data to temporary file
-            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                fos.write(imageData);
-                fos.flush();
+            // Checked before any write; the hash is computed by whichever write below stages the data
+            session.setPayloadBytes(imageData.length);
+            verifyExpectedSize(options, imageData.length);
+            session.reserve(imageData.length);
+
+            // When the strategy picks MediaStore, decode straight into it, skipping the temporary file write.
+            // Alternate formats are served from a file, so they always take the temporary file.
+            ClipData clip = null;
+            boolean mediaStoreTried = false;
+            List<String> alternateFormats = getAlternateFormats(options);
+            if (alternateFormats.isEmpty() && MediaClipboardStrategy.MEDIA_STORE.equals(strategy.plan(mimeType, imageData.length, false).get(0))) {
+                mediaStoreTried = true;
+                long start = System.nanoTime();
+                Uri mediaUri = createMediaStoreUriForClipboard(new ByteArrayInputStream(imageData), mimeType, session);
+                if (mediaUri != null) {
+                    strategy.recordSuccess(MediaClipboardStrategy.MEDIA_STORE, mimeType, imageData.length, System.nanoTime() - start);
+                    session.setStagingPath("mediaStore");
+                    try {
+                        verifyIntegrity(options, session, imageData.length, null);
+                    } catch (MediaClipboardUtils.IntegrityException e) {
+                        deleteStagedMediaUri(mediaUri);
+                        throw e;
+                    }
+                    clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "image", mediaUri);
+                } else {
+                    strategy.recordFailure(MediaClipboardStrategy.MEDIA_STORE, mimeType);
+                }
             }
-            
-            android.util.Log.d("MediaClipboard", "Created temporary image file: " + tempFile.getAbsolutePath() + " (" + imageData.length + " bytes)");
-            
-            // Create content URI and copy to clipboard
-            Uri imageUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), tempFile);
-            if (imageUri != null) {
-                // Create ClipData with proper permissions for FileProvider URIs
-                ClipData clip = createClipDataForImage(imageUri, mimeType);
-                
+
+            Uri imageUri = null;
+            if (clip == null) {
+                // Create temporary file
+                String filename = createTempFileName("clipboard_image", extension);
+                File tempFile = new File(getStagingDir(), filename);
+                temporaryFiles.add(tempFile); // Add to list for cleanup
+
+                // Write decoded data to temporary file, hashing it on the way if MediaStore did not
+                MessageDigest digest = session.getContentHash() == null ? MediaClipboardUtils.newSha256() : null;
+                MediaClipboardUtils.writeFileAtomically(tempFile, imageData, digest);
+                session.recordWrite(tempFile, imageData.length);
+                if (digest != null) {
+                    session.setContentHash(MediaClipboardUtils.toHex(digest.digest()));
+                }
+
+                android.util.Log.d("MediaClipboard", "Created temporary image file: " + tempFile.getAbsolutePath() + " (" + imageData.length + " bytes)");
+
+                // Create content URI and copy to clipboard
+                imageUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), tempFile);
+                if (imageUri != null) {
+                    // Create ClipData with proper permissions for FileProvider URIs; MediaStore already failed once
+                    if (!alternateFormats.isEmpty()) {
+                        clip = createClipDataWithAlternates(tempFile, imageUri, mimeType, alternateFormats, session);
+                    } else if (mediaStoreTried) {
+                        clip = createFileProviderClipForImage(imageUri, mimeType, session);
+                    } else {
+                        clip = createClipDataForImage(tempFile, imageUri, mimeType, session);
+                    }
+                    if (clip != null) {
+                        verifyStagedIntegrity(options, session, tempFile, clip);
+                    }
+                }
+            }
+
+            if (clip != null || imageUri != null) {
                 if (clip != null) {
                     clipboardManager.setPrimaryClip(clip);
                     
@@ -211,6 +401,8 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                 promise.reject("URI_CREATION_ERROR", "Failed to create content URI for base64 image");
             }
             
+        } catch (MediaClipboardStorage.QuotaExceededException | MediaClipboardUtils.IntegrityException e) {
+            rejectCopyError(promise, "BASE64_IMAGE_ERROR", e);
         } catch (Exception e) {
             android.util.Log.e("MediaClipboard", "Error handling base64 image", e);
             promise.reject("BASE64_IMAGE_ERROR", "Failed to process base64 image: " + e.getMessage(), e);
@@ -220,8 +412,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void copyVideo(String videoPath, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
-                String resolvedPath = resolveAssetPath(videoPath);
+                String resolvedPath = resolveSource(videoPath, session);
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (videoPath.startsWith("./") || videoPath.startsWith("../") || videoPath.contains("/../") || videoPath.contains("/./"))) {
@@ -235,16 +428,23 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
+                session.setPayloadBytes(videoFile.length());
                 Uri videoUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), videoFile);
                 if (videoUri != null) {
-                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "video", videoUri);
+                    String mimeType = MediaClipboardUtils.getMimeType(resolvedPath);
+                    Uri clipboardUri = getClipboardUri(videoFile, videoUri, mimeType != null ? mimeType : "video/mp4", session);
+                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "video", clipboardUri);
+                    verifyStagedIntegrity(options, session, videoFile, clip);
+                    addPreviewItem(clip, videoFile, false, options, session);
                     clipboardManager.setPrimaryClip(clip);
                     promise.resolve(null);
                 } else {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for video");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_VIDEO_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_VIDEO_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -252,8 +452,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void copyPDF(String pdfPath, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
-                String resolvedPath = resolveAssetPath(pdfPath);
+                String resolvedPath = resolveSource(pdfPath, session);
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (pdfPath.startsWith("./") || pdfPath.startsWith("../") || pdfPath.contains("/../") || pdfPath.contains("/./"))) {
@@ -267,16 +468,21 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
+                session.setPayloadBytes(pdfFile.length());
                 Uri pdfUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), pdfFile);
                 if (pdfUri != null) {
-                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "pdf", pdfUri);
+                    Uri clipboardUri = getClipboardUri(pdfFile, pdfUri, "application/pdf", session);
+                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "pdf", clipboardUri);
+                    verifyStagedIntegrity(options, session, pdfFile, clip);
                     clipboardManager.setPrimaryClip(clip);
                     promise.resolve(null);
                 } else {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for PDF");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_PDF_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_PDF_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -284,8 +490,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void copyAudio(String audioPath, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
-                String resolvedPath = resolveAssetPath(audioPath);
+                String resolvedPath = resolveSource(audioPath, session);
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (audioPath.startsWith("./") || audioPath.startsWith("../") || audioPath.contains("/../") || audioPath.contains("/./"))) {
@@ -299,16 +506,23 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
+                session.setPayloadBytes(audioFile.length());
                 Uri audioUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), audioFile);
                 if (audioUri != null) {
-                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "audio", audioUri);
+                    String mimeType = MediaClipboardUtils.getMimeType(resolvedPath);
+                    Uri clipboardUri = getClipboardUri(audioFile, audioUri, mimeType != null ? mimeType : "audio/mpeg", session);
+                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "audio", clipboardUri);
+                    verifyStagedIntegrity(options, session, audioFile, clip);
+                    addPreviewItem(clip, audioFile, true, options, session);
                     clipboardManager.setPrimaryClip(clip);
                     promise.resolve(null);
                 } else {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for audio");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_AUDIO_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_AUDIO_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -316,8 +530,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void copyFile(String filePath, String mimeType, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
-                String resolvedPath = resolveAssetPath(filePath);
+                String resolvedPath = resolveSource(filePath, session);
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (filePath.startsWith("./") || filePath.startsWith("../") || filePath.contains("/../") || filePath.contains("/./"))) {
@@ -331,16 +546,21 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                     return;
                 }
 
+                session.setPayloadBytes(file.length());
                 Uri fileUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), file);
                 if (fileUri != null) {
-                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "file", fileUri);
+                    Uri clipboardUri = getClipboardUri(file, fileUri, mimeType, session);
+                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "file", clipboardUri);
+                    verifyStagedIntegrity(options, session, file, clip);
                     clipboardManager.setPrimaryClip(clip);
                     promise.resolve(null);
                 } else {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for file");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_FILE_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_FILE_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -348,8 +568,9 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void copyLargeFile(String filePath, String mimeType, ReadableMap options, Promise promise) {
         executorService.execute(() -> {
+            MediaClipboardStorage.CopySession session = storage.beginCopy();
             try {
-                String resolvedPath = resolveAssetPath(filePath);
+                String resolvedPath = resolveSource(filePath, session);
                 
                 // Check if this is a relative path issue
                 if (resolvedPath == null && (filePath.startsWith("./") || filePath.startsWith("../") || filePath.contains("/../") || filePath.contains("/./"))) {
@@ -365,16 +586,21 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
 
                 // For large files, we might want to implement progress tracking
                 // For now, we'll treat it the same as regular file copy
+                session.setPayloadBytes(file.length());
                 Uri fileUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), file);
                 if (fileUri != null) {
-                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "file", fileUri);
+                    Uri clipboardUri = getClipboardUri(file, fileUri, mimeType, session);
+                    ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "file", clipboardUri);
+                    verifyStagedIntegrity(options, session, file, clip);
                     clipboardManager.setPrimaryClip(clip);
                     promise.resolve(null);
                 } else {
                     promise.reject("URI_CREATION_ERROR", "Failed to create content URI for large file");
                 }
             } catch (Exception e) {
-                promise.reject("COPY_LARGE_FILE_ERROR", e.getMessage(), e);
+                rejectCopyError(promise, "COPY_LARGE_FILE_ERROR", e);
+            } finally {
+                storage.finishCopy(session);
             }
         });
     }
@@ -405,7 +631,19 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
 
             ClipData.Item item = clip.getItemAt(0);
 
-            if (item.getText() != null) {
+            if (item.getHtmlText() != null) {
+                result.putString("type", "text");
+                result.putString("mimeType", ClipDescription.MIMETYPE_TEXT_HTML);
+                result.putString("data", item.getText() != null ? item.getText().toString() : MediaClipboardHtml.toPlainText(item.getHtmlText()));
+                result.putString("html", item.getHtmlText());
+            } else if (item.getUri() != null && clip.getDescription().hasMimeType(ClipDescription.MIMETYPE_TEXT_HTML)) {
+                // Large HTML staged by copyHtml
+                String html = readText(item.getUri());
+                result.putString("type", "text");
+                result.putString("mimeType", ClipDescription.MIMETYPE_TEXT_HTML);
+                result.putString("data", item.getText() != null ? item.getText().toString() : MediaClipboardHtml.toPlainText(html));
+                result.putString("html", html);
+            } else if (item.getText() != null) {
                 result.putString("type", "text");
                 result.putString("data", item.getText().toString());
             } else if (item.getUri() != null) {
@@ -455,13 +693,434 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void configure(ReadableMap options, Promise promise) {
+        try {
+            if (options != null) {
+                int connectTimeout = options.hasKey("connectTimeout") ? options.getInt("connectTimeout") : httpClient.getConnectTimeoutMs();
+                int readTimeout = options.hasKey("readTimeout") ? options.getInt("readTimeout") : httpClient.getReadTimeoutMs();
+                int maxRedirects = options.hasKey("maxRedirects") ? options.getInt("maxRedirects") : httpClient.getMaxRedirects();
+                if (connectTimeout < 0 || readTimeout < 0 || maxRedirects < 0) {
+                    promise.reject("INVALID_CONFIG", "Timeouts and maxRedirects must not be negative");
+                    return;
+                }
+                httpClient.configure(connectTimeout, readTimeout, maxRedirects);
+
+                if (options.hasKey("downloadRetries") || options.hasKey("maxConcurrentDownloadsPerHost")
+                        || options.hasKey("circuitBreakerThreshold") || options.hasKey("circuitBreakerResetMs")) {
+                    MediaClipboardHosts hosts = httpClient.getHosts();
+                    int retries = options.hasKey("downloadRetries") ? options.getInt("downloadRetries") : httpClient.getMaxRetries();
+                    int perHost = options.hasKey("maxConcurrentDownloadsPerHost") ? options.getInt("maxConcurrentDownloadsPerHost") : hosts.getMaxConcurrentPerHost();
+                    int threshold = options.hasKey("circuitBreakerThreshold") ? options.getInt("circuitBreakerThreshold") : hosts.getFailureThreshold();
+                    long resetMs = options.hasKey("circuitBreakerResetMs") ? (long) options.getDouble("circuitBreakerResetMs") : hosts.getOpenMs();
+                    if (retries < 0 || perHost <= 0 || threshold <= 0 || resetMs < 0) {
+                        promise.reject("INVALID_CONFIG", "downloadRetries and circuitBreakerResetMs must not be negative; maxConcurrentDownloadsPerHost and circuitBreakerThreshold must be positive");
+                        return;
+                    }
+                    httpClient.configureResilience(retries, perHost, threshold, resetMs);
+                }
+
+                if (options.hasKey("storageQuotaBytes")) {
+                    storage.setQuotaBytes(readByteLimit(options, "storageQuotaBytes"));
+                }
+                if (options.hasKey("maxCopyBytes")) {
+                    storage.setMaxCopyBytes(readByteLimit(options, "maxCopyBytes"));
+                }
+
+                if (options.hasKey("historyEnabled") || options.hasKey("historyCapacity")) {
+                    boolean enabled = options.hasKey("historyEnabled") ? options.getBoolean("historyEnabled") : history.isOpen();
+                    // Without an explicit capacity the history keeps the one it was created with
+                    Integer capacity = options.hasKey("historyCapacity") ? options.getInt("historyCapacity") : null;
+                    if (capacity != null && capacity <= 0) {
+                        promise.reject("INVALID_CONFIG", "historyCapacity must be positive");
+                        return;
+                    }
+                    setHistoryEnabled(enabled, capacity);
+                }
+            }
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("CONFIGURE_ERROR", e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void prefetch(ReadableArray sources, ReadableMap options, Promise promise) {
+        try {
+            if (options != null) {
+                // Limits not given keep their current values
+                if (options.hasKey("maxEntries") || options.hasKey("maxBytes")) {
+                    int maxEntries = options.hasKey("maxEntries") ? options.getInt("maxEntries") : prefetcher.getMaxEntries();
+                    long maxBytes = options.hasKey("maxBytes") ? (long) options.getDouble("maxBytes") : prefetcher.getMaxBytes();
+                    prefetcher.setLimits(maxEntries, maxBytes);
+                }
+            }
+
+            WritableArray handles = Arguments.createArray();
+            for (int i = 0; i < sources.size(); i++) {
+                handles.pushString(prefetcher.prefetch(sources.getString(i)));
+            }
+            promise.resolve(handles);
+        } catch (Exception e) {
+            promise.reject("PREFETCH_ERROR", e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void cancelPrefetch(@Nullable ReadableArray handles, Promise promise) {
+        try {
+            List<String> handleList = null;
+            if (handles != null) {
+                handleList = new ArrayList<>();
+                for (int i = 0; i < handles.size(); i++) {
+                    handleList.add(handles.getString(i));
+                }
+            }
+            List<String> cancelled = handleList;
+            // Discarding staged files touches disk, keep it off the JS thread
+            executorService.execute(() -> prefetcher.cancel(cancelled));
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("CANCEL_PREFETCH_ERROR", e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void getHistory(int offset, int limit, Promise promise) {
+        try {
+            promise.resolve(history.getPage(offset, limit));
+        } catch (Exception e) {
+            promise.reject("GET_HISTORY_ERROR", e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void clearHistory(Promise promise) {
+        try {
+            history.clear();
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("CLEAR_HISTORY_ERROR", e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            result.putMap("storage", storage.toMap());
+            result.putMap("prefetch", prefetcher.toMap());
+            result.putMap("buffers", MediaClipboardBufferPool.shared().toMap());
+            result.putMap("previews", previews.toMap());
+            result.putMap("strategy", strategy.toMap());
+            result.putMap("formats", MediaClipboardFormats.shared().toMap());
+            result.putMap("hosts", httpClient.getHosts().toMap());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("GET_METRICS_ERROR", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start or stop recording clipboard changes into the history file
+     */
+    private void setHistoryEnabled(boolean enabled, @Nullable Integer capacity) throws IOException {
+        clipboardManager.removePrimaryClipChangedListener(historyListener);
+        if (enabled) {
+            if (capacity != null) {
+                history.open(capacity);
+            } else {
+                history.open();
+            }
+            clipboardManager.addPrimaryClipChangedListener(historyListener);
+            recordPrimaryClip(); // Capture what is on the clipboard right now
+        } else {
+            history.close();
+        }
+    }
+
+    /**
+     * Append the current primary clip to the history
+     */
+    private void recordPrimaryClip() {
+        try {
+            ClipData clip = clipboardManager.getPrimaryClip();
+            if (clip == null || clip.getItemCount() == 0) {
+                return;
+            }
+            ClipData.Item item = clip.getItemAt(0);
+            String mimeType = clip.getDescription().getMimeTypeCount() > 0 ? clip.getDescription().getMimeType(0) : null;
+            if (item.getHtmlText() != null) {
+                history.record(MediaClipboardHistory.TYPE_HTML, mimeType, item.getHtmlText());
+            } else if (item.getUri() != null) {
+                history.record(MediaClipboardHistory.TYPE_URI, mimeType, item.getUri().toString());
+            } else if (item.getText() != null) {
+                history.record(MediaClipboardHistory.TYPE_TEXT, mimeType, item.getText().toString());
+            }
+        } catch (Exception e) {
+            // Reading the clipboard can fail while the app is in the background
+            android.util.Log.w("MediaClipboard", "Could not record clipboard history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a text content URI as UTF-8
+     */
+    private String readText(Uri uri) throws IOException {
+        try (InputStream inputStream = getReactApplicationContext().getContentResolver().openInputStream(uri)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("Cannot open " + uri);
+            }
+            java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream();
+            MediaClipboardUtils.copyStream(inputStream, outputStream, null, -1);
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Read a byte limit option; null or negative values mean unlimited
+     */
+    private long readByteLimit(ReadableMap options, String key) {
+        if (options.isNull(key)) {
+            return MediaClipboardStorage.UNLIMITED;
+        }
+        double value = options.getDouble(key);
+        return value < 0 ? MediaClipboardStorage.UNLIMITED : (long) value;
+    }
+
+    /**
+     * Resolve a copy source, reusing a prefetched local file when there is one
+     */
+    private String resolveSource(String path, MediaClipboardStorage.CopySession session) throws IOException {
+        MediaClipboardPrefetcher.StagedMedia staged = prefetcher.get(path);
+        if (staged != null) {
+            session.setStagingPath("prefetched");
+            session.setContentHash(staged.contentHash);
+            return staged.localPath;
+        }
+        return resolveAssetPath(path, session);
+    }
+
+    /**
+     * Stage a source in the background: download or load it, and for images also
+     * create the clipboard-compatible URI so a later copy only has to set the clip
+     */
+    private MediaClipboardPrefetcher.StagedMedia stageForPrefetch(String source) throws Exception {
+        if (source.startsWith("data:")) {
+            throw new IllegalArgumentException("Data URIs are decoded at copy time and are not prefetched");
+        }
+
+        MediaClipboardStorage.CopySession session = storage.beginCopy();
+        session.markPrefetch();
+        try {
+            String resolvedPath = resolveAssetPath(source, session);
+            if (resolvedPath == null) {
+                throw new FileNotFoundException("Relative paths are not supported: " + source);
+            }
+            File file = new File(resolvedPath);
+            if (!file.exists()) {
+                throw new FileNotFoundException("File not found: " + source + " (resolved to: " + resolvedPath + ")");
+            }
+            session.setPayloadBytes(file.length());
+
+            String mimeType = MediaClipboardUtils.getMimeType(resolvedPath);
+            Uri clipboardUri = null;
+            if (mimeType != null && mimeType.startsWith("image/")) {
+                clipboardUri = stageForClipboard(file, mimeType, session);
+            }
+
+            android.util.Log.d("MediaClipboard", "Prefetched " + source + " (" + session.getBytesWritten() + " bytes staged)");
+            return new MediaClipboardPrefetcher.StagedMedia(resolvedPath, clipboardUri, mimeType, session.getBytesWritten(), session.getContentHash());
+        } finally {
+            storage.finishCopy(session);
+        }
+    }
+
+    /**
+     * Delete what was staged for a prefetch that was evicted or cancelled before use.
+     * Only files and MediaStore rows created by this module are removed.
+     */
+    private void discardPrefetched(MediaClipboardPrefetcher.StagedMedia media) {
+        discardStaged(new File(media.localPath), media.clipboardUri, true);
+    }
+
+    /**
+     * Delete a staged local file and clipboard URI, but only if this module created them.
+     * With ownsLocalFile false the local file is shared with other copies and is kept.
+     */
+    private void discardStaged(File localFile, @Nullable Uri clipboardUri, boolean ownsLocalFile) {
+        if (ownsLocalFile && temporaryFiles.remove(localFile) && localFile.delete()) {
+            storage.release(localFile);
+        }
+        if (clipboardUri == null) {
+            return;
+        }
+        File clipboardFile = getStagedFile(clipboardUri);
+        if (clipboardFile != null) {
+            stagedFileUris.remove(clipboardUri);
+            if (!clipboardFile.equals(localFile) && temporaryFiles.remove(clipboardFile) && clipboardFile.delete()) {
+                storage.release(clipboardFile);
+            }
+        } else if (stagedMediaUris.containsKey(clipboardUri)) {
+            deleteStagedMediaUri(clipboardUri);
+        }
+    }
+
+    /**
+     * Delete a MediaStore row this module created and forget it everywhere
+     */
+    private void deleteStagedMediaUri(Uri uri) {
+        try {
+            getReactApplicationContext().getContentResolver().delete(uri, null, null);
+        } catch (Exception e) {
+            android.util.Log.w("MediaClipboard", "Could not delete MediaStore copy: " + uri);
+        }
+        stagedMediaUris.remove(uri);
+        journal.remove(uri);
+        storage.release(uri.toString());
+    }
+
+    /**
+     * Add a poster frame (video) or cover art (audio) as a second clip item when the
+     * includePreview option is set. Best effort: a missing preview never fails the copy.
+     */
+    private void addPreviewItem(ClipData clip, File mediaFile, boolean audio, @Nullable ReadableMap options, MediaClipboardStorage.CopySession session) {
+        if (options == null || !options.hasKey("includePreview") || !options.getBoolean("includePreview")) {
+            return;
+        }
+        int previewSize = options.hasKey("previewSize") && !options.isNull("previewSize")
+                ? options.getInt("previewSize")
+                : MediaClipboardPreviews.DEFAULT_PREVIEW_SIZE;
+        try {
+            File stagingDir = getStagingDir();
+            boolean cached = previews.isCached(mediaFile, previewSize, stagingDir);
+            if (!cached && !session.tryReserve((long) previewSize * previewSize)) {
+                session.markDowngraded(); // Rough upper bound for a JPEG of that size
+                return;
+            }
+            File previewFile = previews.getPreview(mediaFile, audio, previewSize, stagingDir);
+            if (previewFile == null) {
+                return;
+            }
+            if (!cached) {
+                session.recordWrite(previewFile, previewFile.length());
+            }
+
+            Uri previewUri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), previewFile);
+            if (previewUri == null) {
+                return;
+            }
+            ClipData.Item item = new ClipData.Item(previewUri);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                // Also adds the preview's MIME type to the clip description
+                clip.addItem(getReactApplicationContext().getContentResolver(), item);
+            } else {
+                clip.addItem(item);
+            }
+        } catch (Exception e) {
+            android.util.Log.w("MediaClipboard", "Could not add preview for " + mediaFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check the payload against the expectedSize and expectedHash copy options.
+     * Uses the hash computed by the copy loop that staged the payload when there is
+     * one; otherwise the file is hashed here, which costs one extra read.
+     */
+    private void verifyIntegrity(@Nullable ReadableMap options, MediaClipboardStorage.CopySession session, long actualSize, @Nullable File file) throws IOException {
+        if (options == null) {
+            return;
+        }
+        verifyExpectedSize(options, actualSize);
+        if (options.hasKey("expectedHash") && !options.isNull("expectedHash")) {
+            String expectedHash = options.getString("expectedHash").trim().toLowerCase(Locale.US);
+            if (expectedHash.startsWith("sha256:")) {
+                expectedHash = expectedHash.substring("sha256:".length());
+            }
+            String actualHash = session.getContentHash();
+            if (actualHash == null && file != null) {
+                actualHash = MediaClipboardUtils.sha256(file);
+                session.setContentHash(actualHash);
+            }
+            if (!expectedHash.equals(actualHash)) {
+                throw new MediaClipboardUtils.IntegrityException("SHA-256 mismatch: expected " + expectedHash + " but got " + actualHash);
+            }
+        }
+    }
+
+    /**
+     * Check the payload size against the expectedSize copy option
+     */
+    private void verifyExpectedSize(@Nullable ReadableMap options, long actualSize) throws MediaClipboardUtils.IntegrityException {
+        if (options != null && options.hasKey("expectedSize") && !options.isNull("expectedSize")) {
+            long expectedSize = (long) options.getDouble("expectedSize");
+            if (actualSize != expectedSize) {
+                throw new MediaClipboardUtils.IntegrityException("Size mismatch: expected " + expectedSize + " bytes but got " + actualSize);
+            }
+        }
+    }
+
+    /**
+     * Verify a copy before it reaches the clipboard, deleting what was staged for it on mismatch
+     */
+    private void verifyStagedIntegrity(@Nullable ReadableMap options, MediaClipboardStorage.CopySession session, File file, ClipData clip) throws IOException {
+        try {
+            verifyIntegrity(options, session, file.length(), file);
+        } catch (MediaClipboardUtils.IntegrityException e) {
+            // A prefetched source may be on the clipboard from an earlier copy; keep it
+            boolean shared = prefetcher.evictFailed(file.getPath());
+            discardStaged(file, clip.getItemCount() > 0 ? clip.getItemAt(0).getUri() : null, !shared);
+            throw e;
+        }
+    }
+
+    /**
+     * Check that a staged clipboard URI has not been cleaned up since it was created
+     */
+    private boolean isClipboardUriValid(Uri uri) {
+        File stagedFile = getStagedFile(uri);
+        if (stagedFile != null) {
+            return stagedFile.exists();
+        }
+        return stagedMediaUris.containsKey(uri);
+    }
+
+    /**
+     * Share a file staged in the external cache. Android 7+ throws FileUriExposedException
+     * for file:// URIs on the clipboard, so those get a FileProvider URI instead.
+     */
+    private Uri shareStagedFile(File file) {
+        Uri uri = MediaClipboardUtils.getContentUri(getReactApplicationContext(), file);
+        if (!"file".equals(uri.getScheme())) {
+            stagedFileUris.put(uri, file);
+        }
+        return uri;
+    }
+
+    /**
+     * File behind a URI returned by shareStagedFile, or null for other URIs
+     */
+    @Nullable
+    private File getStagedFile(Uri uri) {
+        if ("file".equals(uri.getScheme())) {
+            return new File(uri.getPath());
+        }
+        return stagedFileUris.get(uri);
+    }
+
     /**
      * Resolve React Native asset paths to actual file system paths or handle URLs
      */
-    private String resolveAssetPath(String path) {
+    private String resolveAssetPath(String path, MediaClipboardStorage.CopySession session) throws IOException {
         // Handle HTTP/HTTPS URLs - download and cache them
         if (path.startsWith("http://") || path.startsWith("https://")) {
-            return downloadAndCacheFile(path);
+            return downloadAndCacheFile(path, session);
+        }
+
+        // Handle bundled APK assets: asset://name or file:///android_asset/name
+        if (MediaClipboardAssets.isAssetPath(path)) {
+            String assetPath = materializeAsset(MediaClipboardAssets.toAssetName(path), session);
+            return assetPath != null ? assetPath : path;
         }
         
         // If it's already an absolute path, return as-is
@@ -516,93 +1175,123 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
             }
         }
 
+        // Fall back to assets packaged inside the APK
+        String assetPath = materializeAsset(cleanPath, session);
+        if (assetPath != null) {
+            return assetPath;
+        }
+
         android.util.Log.d("MediaClipboard", "Asset not found, using original path: " + path);
         // If not found in any location, return the original path (might be absolute or in a different location)
         return path;
     }
 
     /**
-     * Download file from HTTP/HTTPS URL and cache it locally
+     * Copy a bundled APK asset to the cache directory, returning null if it does not exist
      */
-    private String downloadAndCacheFile(String urlString) {
+    private String materializeAsset(String assetName, MediaClipboardStorage.CopySession session) throws MediaClipboardStorage.QuotaExceededException {
+        if (assetName.isEmpty() || !assets.exists(assetName)) {
+            return null;
+        }
+        File stagingDir = getStagingDir();
+        boolean alreadyStaged = assets.isMaterialized(assetName, stagingDir);
+        if (!alreadyStaged) {
+            session.reserve(assets.getLength(assetName));
+        }
         try {
-            android.util.Log.d("MediaClipboard", "Downloading from URL: " + urlString);
-            
-            // Clean up old temp files before downloading new ones
-            cleanupOldTempFiles();
-            
-            java.net.URL url = new java.net.URL(urlString);
-            java.net.URLConnection connection = url.openConnection();
-            connection.setConnectTimeout(10000); // 10 second timeout
-            connection.setReadTimeout(30000);    // 30 second read timeout
-            
-            // Get file extension from URL or content type
-            String fileName = "downloaded_file";
-            String urlPath = url.getPath();
-            if (urlPath != null && urlPath.contains(".")) {
-                fileName = urlPath.substring(urlPath.lastIndexOf("/") + 1);
-                if (fileName.length() > 50) { // Limit filename length
-                    String extension = "";
-                    if (fileName.contains(".")) {
-                        extension = fileName.substring(fileName.lastIndexOf("."));
-                    }
-                    fileName = "file_" + System.currentTimeMillis() + extension;
-                }
-            } else {
-                // Try to get extension from content type
-                String contentType = connection.getContentType();
-                if (contentType != null) {
-                    if (contentType.startsWith("image/")) {
-                        fileName += ".jpg"; // Default image extension
-                    } else if (contentType.startsWith("video/")) {
-                        fileName += ".mp4"; // Default video extension
-                    } else if (contentType.startsWith("audio/")) {
-                        fileName += ".mp3"; // Default audio extension
-                    } else if (contentType.equals("application/pdf")) {
-                        fileName += ".pdf";
-                    }
-                }
+            File assetFile = assets.materialize(assetName, stagingDir, session.getRemainingBytes());
+            if (assetFile == null) {
+                return null;
             }
-            
-            // Create cache file with unique name
-            File cacheDir = getReactApplicationContext().getCacheDir();
-            String prefix = "clipboard";
-            String extension = "";
-            if (fileName.contains(".")) {
-                extension = fileName.substring(fileName.lastIndexOf(".") + 1);
-                prefix += "_" + fileName.substring(0, fileName.lastIndexOf("."));
-            } else {
-                prefix += "_" + fileName;
-                extension = "dat"; // Default extension
+            if (!alreadyStaged) {
+                session.recordWrite(assetFile, assetFile.length());
             }
-            
-            String uniqueFileName = createTempFileName(prefix, extension);
-            File cacheFile = new File(cacheDir, uniqueFileName);
-            temporaryFiles.add(cacheFile); // Add to list for cleanup
-            
-            // Download file
-            java.io.InputStream inputStream = connection.getInputStream();
-            java.io.FileOutputStream outputStream = new java.io.FileOutputStream(cacheFile);
-            
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytes = 0;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+            if (!temporaryFiles.contains(assetFile)) {
+                temporaryFiles.add(assetFile); // Add to list for cleanup
             }
-            
-            inputStream.close();
-            outputStream.close();
-            
-            android.util.Log.d("MediaClipboard", "Downloaded " + totalBytes + " bytes to: " + cacheFile.getAbsolutePath());
-            return cacheFile.getAbsolutePath();
-            
-        } catch (Exception e) {
-            android.util.Log.e("MediaClipboard", "Failed to download from URL: " + urlString, e);
-            return urlString; // Return original URL so error message shows the URL
+            return assetFile.getAbsolutePath();
+        } catch (MediaClipboardStorage.QuotaExceededException e) {
+            throw e;
+        } catch (IOException e) {
+            android.util.Log.e("MediaClipboard", "Failed to load bundled asset: " + assetName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Download file from HTTP/HTTPS URL and cache it locally
+     */
+    private String downloadAndCacheFile(String urlString, MediaClipboardStorage.CopySession session) throws IOException {
+        android.util.Log.d("MediaClipboard", "Downloading from URL: " + urlString);
+
+        // Clean up old temp files before downloading new ones
+        cleanupOldTempFiles();
+
+        // Get file name from URL path
+        String fileName = "downloaded_file";
+        String urlPath = Uri.parse(urlString).getPath();
+        if (urlPath != null && urlPath.contains(".")) {
+            fileName = urlPath.substring(urlPath.lastIndexOf("/") + 1);
+            if (fileName.length() > 50) { // Limit filename length
+                String extension = "";
+                if (fileName.contains(".")) {
+                    extension = fileName.substring(fileName.lastIndexOf("."));
+                }
+                fileName = "file_" + System.currentTimeMillis() + extension;
+            }
+        }
+
+        // Create cache file with unique name
+        File cacheDir = getStagingDir();
+        String prefix = "clipboard";
+        String extension = "";
+        if (fileName.contains(".")) {
+            extension = fileName.substring(fileName.lastIndexOf(".") + 1);
+            prefix += "_" + fileName.substring(0, fileName.lastIndexOf("."));
+        } else {
+            prefix += "_" + fileName;
+            extension = "dat"; // Default extension
+        }
+
+        String uniqueFileName = createTempFileName(prefix, extension);
+        File cacheFile = new File(cacheDir, uniqueFileName);
+        temporaryFiles.add(cacheFile); // Add to list for cleanup
+
+        MediaClipboardHttp.DownloadResult result = httpClient.download(urlString, cacheFile, session.getRemainingBytes());
+
+        // No extension in the URL: name the file after the response content type
+        if ("dat".equals(extension) && result.contentType != null) {
+            String contentExtension = getExtensionForContentType(result.contentType);
+            if (contentExtension != null) {
+                File typedFile = new File(cacheDir, createTempFileName(prefix, contentExtension));
+                if (cacheFile.renameTo(typedFile)) {
+                    temporaryFiles.remove(cacheFile);
+                    temporaryFiles.add(typedFile);
+                    cacheFile = typedFile;
+                }
+            }
+        }
+
+        session.recordWrite(cacheFile, result.bytes);
+        session.setContentHash(result.sha256);
+        android.util.Log.d("MediaClipboard", "Downloaded " + result.bytes + " bytes to: " + cacheFile.getAbsolutePath());
+        return cacheFile.getAbsolutePath();
+    }
+
+    /**
+     * Map a response Content-Type to a default file extension
+     */
+    private String getExtensionForContentType(String contentType) {
+        if (contentType.startsWith("image/")) {
+            return "jpg"; // Default image extension
+        } else if (contentType.startsWith("video/")) {
+            return "mp4"; // Default video extension
+        } else if (contentType.startsWith("audio/")) {
+            return "mp3"; // Default audio extension
+        } else if (contentType.startsWith("application/pdf")) {
+            return "pdf";
         }
+        return null;
     }
 
     /**
@@ -610,25 +1299,164 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
      */
     private void cleanupOldTempFiles() {
         try {
-            File cacheDir = getReactApplicationContext().getCacheDir();
-            File[] files = cacheDir.listFiles();
-            if (files != null) {
-                long currentTime = System.currentTimeMillis();
+            long currentTime = System.currentTimeMillis();
+            for (File cacheDir : getStagingDirs()) {
+                File[] files = cacheDir.listFiles();
+                if (files == null) {
+                    continue;
+                }
                 for (File file : files) {
                     // Delete files older than 1 hour and starting with "clipboard_"
                     if (file.getName().startsWith("clipboard_") && 
                         (currentTime - file.lastModified()) > 3600000) { // 1 hour in milliseconds
                         if (file.delete()) {
+                            storage.release(file);
                             android.util.Log.d("MediaClipboard", "Cleaned up old temp file: " + file.getName());
                         }
                     }
                 }
             }
+
+            // MediaStore copies follow the same 1 hour lifetime
+            for (Map.Entry<Uri, Long> entry : stagedMediaUris.entrySet()) {
+                if ((currentTime - entry.getValue()) > 3600000) {
+                    deleteStagedMediaUri(entry.getKey());
+                }
+            }
         } catch (Exception e) {
             android.util.Log.e("MediaClipboard", "Error cleaning up temp files", e);
         }
     }
 
+    /**
+     * Staged files and journal entries left by earlier processes
+     */
+    private static class StagedMediaSnapshot {
+        final List<File> partialFiles = new ArrayList<>();
+        final List<File> stagedFiles = new ArrayList<>();
+        List<Uri> pendingRows;
+        Map<Uri, MediaClipboardJournal.StagedRow> stagedRows;
+    }
+
+    /**
+     * List what earlier processes left behind. Runs in the constructor, before copies are
+     * accepted, so partial files and pending rows of copies in flight are never included.
+     */
+    private StagedMediaSnapshot snapshotStagedMedia() {
+        StagedMediaSnapshot snapshot = new StagedMediaSnapshot();
+        for (File cacheDir : getStagingDirs()) {
+            File[] files = cacheDir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (!file.getName().startsWith("clipboard_")) {
+                    continue;
+                }
+                if (MediaClipboardUtils.isPartialFile(file)) {
+                    snapshot.partialFiles.add(file);
+                } else {
+                    snapshot.stagedFiles.add(file);
+                }
+            }
+        }
+        // Conversions are written by the format provider, possibly right now, so only finished ones are counted
+        File[] converted = MediaClipboardFormats.getCacheDir(getReactApplicationContext()).listFiles();
+        if (converted != null) {
+            for (File file : converted) {
+                if (!MediaClipboardUtils.isPartialFile(file)) {
+                    snapshot.stagedFiles.add(file);
+                }
+            }
+        }
+        snapshot.pendingRows = journal.getPending();
+        snapshot.stagedRows = journal.getStaged();
+        return snapshot;
+    }
+
+    /**
+     * Startup recovery: delete partial files and unfinished MediaStore rows left by a
+     * process that died mid-copy, and count what remains towards the storage quota.
+     * Only the staging directories and the journal are read; MediaStore is never scanned.
+     */
+    private void recoverStagedMedia(StagedMediaSnapshot leftovers) {
+        for (File file : leftovers.partialFiles) {
+            if (file.delete()) {
+                android.util.Log.d("MediaClipboard", "Removed partial file: " + file.getName());
+            }
+        }
+        for (File file : leftovers.stagedFiles) {
+            if (file.exists()) {
+                storage.trackExisting(file);
+            }
+        }
+
+        ContentResolver resolver = getReactApplicationContext().getContentResolver();
+        for (Uri uri : leftovers.pendingRows) {
+            try {
+                resolver.delete(uri, null, null);
+                android.util.Log.d("MediaClipboard", "Removed unfinished MediaStore copy: " + uri);
+            } catch (Exception e) {
+                android.util.Log.w("MediaClipboard", "Could not delete unfinished MediaStore copy: " + uri);
+            }
+            journal.remove(uri);
+        }
+        for (Map.Entry<Uri, MediaClipboardJournal.StagedRow> entry : leftovers.stagedRows.entrySet()) {
+            // Hand completed rows back to the regular 1 hour cleanup
+            stagedMediaUris.put(entry.getKey(), entry.getValue().createdAt);
+            storage.trackExisting(entry.getKey().toString(), entry.getValue().bytes);
+        }
+    }
+
+    /**
+     * Directory for newly staged files. Before Android 10 this is the external cache, which is
+     * where the clipboard-compatible copy would go anyway, so staging there avoids a second write.
+     */
+    private File getStagingDir() {
+        Context context = getReactApplicationContext();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q && context.getExternalCacheDir() != null) {
+            return context.getExternalCacheDir();
+        }
+        return context.getCacheDir();
+    }
+
+    /**
+     * All directories that may contain staged files
+     */
+    private List<File> getStagingDirs() {
+        Context context = getReactApplicationContext();
+        List<File> dirs = new ArrayList<>();
+        dirs.add(context.getCacheDir());
+        if (context.getExternalCacheDir() != null) {
+            dirs.add(context.getExternalCacheDir());
+        }
+        return dirs;
+    }
+
+    /**
+     * Check if a file already lives in the external cache directory
+     */
+    private boolean isInExternalCache(File file) {
+        File externalCacheDir = getReactApplicationContext().getExternalCacheDir();
+        return externalCacheDir != null && externalCacheDir.equals(file.getParentFile());
+    }
+
+    /**
+     * Reject a copy promise, mapping staging failures to specific error codes
+     */
+    private void rejectCopyError(Promise promise, String defaultCode, Exception e) {
+        if (e instanceof MediaClipboardStorage.QuotaExceededException) {
+            storage.refuseCopy();
+            promise.reject("QUOTA_EXCEEDED", e.getMessage(), e);
+        } else if (e instanceof MediaClipboardHttp.DownloadException) {
+            promise.reject("DOWNLOAD_ERROR", e.getMessage(), e);
+        } else if (e instanceof MediaClipboardUtils.IntegrityException) {
+            promise.reject("INTEGRITY_ERROR", e.getMessage(), e);
+        } else {
+            promise.reject(defaultCode, e.getMessage(), e);
+        }
+    }
+
     /**
      * Create a unique temporary file name
      */
@@ -664,21 +1492,61 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
      * Enhanced method to create ClipData with better error handling and fallbacks
      * Uses MediaStore for clipboard-compatible URIs to avoid "exposed beyond app" errors
      */
-    private ClipData createClipDataForImage(Uri imageUri, String mimeType) {
-        try {
-            // For clipboard operations, we need to use a different approach than FileProvider
-            // FileProvider URIs cause "exposed beyond app" errors when used in ClipData
-            
-            // Try to create a MediaStore URI for clipboard compatibility
-            Uri clipboardUri = createClipboardCompatibleUri(imageUri, mimeType);
-            if (clipboardUri != null) {
-                android.util.Log.d("MediaClipboard", "Using clipboard-compatible URI: " + clipboardUri.toString());
-                ClipData clip = ClipData.newUri(getReactApplicationContext().getContentResolver(), "image", clipboardUri);
-                return clip;
+    private ClipData createClipDataForImage(File imageFile, Uri imageUri, String mimeType, MediaClipboardStorage.CopySession session) {
+        // For clipboard operations, we need to use a different approach than FileProvider
+        // FileProvider URIs cause "exposed beyond app" errors when used in ClipData
+        Uri clipboardUri = stageForClipboard(imageFile, mimeType, session);
+        if (clipboardUri != null) {
+            android.util.Log.d("MediaClipboard", "Using clipboard-compatible URI: " + clipboardUri.toString());
+            return ClipData.newUri(getReactApplicationContext().getContentResolver(), "image", clipboardUri);
+        }
+        return createFileProviderClipForImage(imageUri, mimeType, session);
+    }
+
+    /**
+     * Share an image through the format provider, whose stream types let paste targets
+     * pick one of the alternate encodings. Falls back to the usual staging for files
+     * outside the app's own directories, which the provider does not serve.
+     */
+    private ClipData createClipDataWithAlternates(File imageFile, Uri imageUri, String mimeType, List<String> alternateFormats, MediaClipboardStorage.CopySession session) {
+        Uri formatUri = MediaClipboardFormatProvider.getUri(getReactApplicationContext(), imageFile, mimeType, alternateFormats);
+        if (formatUri == null) {
+            android.util.Log.w("MediaClipboard", "Cannot offer alternate formats for " + imageFile.getAbsolutePath() + ", outside app storage");
+            return createClipDataForImage(imageFile, imageUri, mimeType, session);
+        }
+        session.setStagingPath("formatProvider");
+        // newUri asks the provider for its stream types, so the description lists every alternate
+        return ClipData.newUri(getReactApplicationContext().getContentResolver(), "image", formatUri);
+    }
+
+    /**
+     * Alternate encodings requested with the alternateFormats option. Types that
+     * Bitmap.compress cannot produce, such as HEIC, are skipped.
+     */
+    private List<String> getAlternateFormats(@Nullable ReadableMap options) {
+        List<String> formats = new ArrayList<>();
+        if (options == null || !options.hasKey("alternateFormats") || options.isNull("alternateFormats")) {
+            return formats;
+        }
+        ReadableArray requested = options.getArray("alternateFormats");
+        for (int i = 0; i < requested.size(); i++) {
+            String format = requested.getString(i);
+            if (!MediaClipboardFormats.canEncode(format)) {
+                android.util.Log.w("MediaClipboard", "Cannot encode alternate format " + format + ", skipping it");
+            } else if (!formats.contains(format)) {
+                formats.add(format);
             }
-            
-            // Fallback: Try the original approach with global permissions
+        }
+        return formats;
+    }
+
+    /**
+     * Share an image's FileProvider URI directly, granting read access for the clipboard
+     */
+    private ClipData createFileProviderClipForImage(Uri imageUri, String mimeType, MediaClipboardStorage.CopySession session) {
+        try {
             ClipData clip;
+            session.setStagingPath("fileProvider");
             
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
                 // For Android 7.0+, use ClipData.Item with explicit URI permissions
@@ -711,21 +1579,77 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Clipboard URI for a non-image copy: a compatibility copy when the strategy picks one,
+     * otherwise the FileProvider URI itself
+     */
+    private Uri getClipboardUri(File file, Uri contentUri, String mimeType, MediaClipboardStorage.CopySession session) {
+        Uri clipboardUri = stageForClipboard(file, mimeType, session);
+        if (clipboardUri != null) {
+            return clipboardUri;
+        }
+        session.setStagingPath("fileProvider");
+        return contentUri;
+    }
+
+    /**
+     * Stage a file at a clipboard-compatible URI on the route the strategy picks,
+     * or return null to share the FileProvider URI
+     */
+    private Uri stageForClipboard(File file, String mimeType, MediaClipboardStorage.CopySession session) {
+        boolean inExternalCache = isInExternalCache(file);
+        for (String route : strategy.plan(mimeType, file.length(), inExternalCache)) {
+            if (MediaClipboardStrategy.FILE_PROVIDER.equals(route)) {
+                break;
+            }
+            if (MediaClipboardStrategy.EXTERNAL_CACHE.equals(route) && inExternalCache) {
+                // Already staged where the compatibility copy would go; reuse it without another write
+                strategy.recordChoice(route);
+                session.setStagingPath("externalCache");
+                return shareStagedFile(file);
+            }
+            if (!session.tryReserve(file.length())) {
+                // Over quota: share the already staged file instead of writing another copy
+                android.util.Log.w("MediaClipboard", "Storage quota reached, skipping clipboard-compatible copy");
+                session.markDowngraded();
+                break;
+            }
+
+            long start = System.nanoTime();
+            Uri clipboardUri = createClipboardCompatibleUri(file, mimeType, route, session);
+            if (clipboardUri != null) {
+                strategy.recordSuccess(route, mimeType, file.length(), System.nanoTime() - start);
+                return clipboardUri;
+            }
+            strategy.recordFailure(route, mimeType);
+        }
+        strategy.recordChoice(MediaClipboardStrategy.FILE_PROVIDER);
+        return null;
+    }
+
     /**
      * Create a clipboard-compatible URI by copying the file to a publicly accessible location
      * This avoids the "exposed beyond app" error with FileProvider URIs
      */
-    private Uri createClipboardCompatibleUri(Uri originalUri, String mimeType) {
-        try {
-            Context context = getReactApplicationContext();
-            
+    private Uri createClipboardCompatibleUri(File sourceFile, String mimeType, String route, MediaClipboardStorage.CopySession session) {
+        // Read the staged file directly rather than back through our own FileProvider
+        try (InputStream inputStream = new FileInputStream(sourceFile)) {
+
             // For Android 10+ (API 29+), we can use MediaStore to create public URIs
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                return createMediaStoreUriForClipboard(originalUri, mimeType);
+            if (MediaClipboardStrategy.MEDIA_STORE.equals(route)) {
+                Uri mediaUri = createMediaStoreUriForClipboard(inputStream, mimeType, session);
+                if (mediaUri != null) {
+                    session.setStagingPath("mediaStore");
+                }
+                return mediaUri;
             }
             
             // For older versions, copy to external cache which is more accessible
-            return copyToExternalCacheForClipboard(originalUri, mimeType);
+            Uri fileUri = copyToExternalCacheForClipboard(inputStream, mimeType, session);
+            if (fileUri != null) {
+                session.setStagingPath("externalCache");
+            }
+            return fileUri;
             
         } catch (Exception e) {
             android.util.Log.e("MediaClipboard", "Failed to create clipboard-compatible URI", e);
@@ -734,9 +1658,10 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
     }
 
     /**
-     * Create a MediaStore URI for clipboard compatibility (Android 10+)
+     * Create a MediaStore URI for clipboard compatibility (Android 10+), in the
+     * collection matching the MIME type
      */
-    private Uri createMediaStoreUriForClipboard(Uri originalUri, String mimeType) {
+    private Uri createMediaStoreUriForClipboard(InputStream inputStream, String mimeType, MediaClipboardStorage.CopySession session) {
         try {
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
                 return null;
@@ -745,42 +1670,45 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
             Context context = getReactApplicationContext();
             ContentResolver resolver = context.getContentResolver();
             
-            // Read the original file
-            InputStream inputStream = resolver.openInputStream(originalUri);
-            if (inputStream == null) {
-                return null;
-            }
-            
             // Create MediaStore entry
+            String mediaClass = MediaClipboardStrategy.getMediaClass(mimeType);
             android.content.ContentValues values = new android.content.ContentValues();
-            values.put(MediaStore.Images.Media.DISPLAY_NAME, "clipboard_image_" + System.currentTimeMillis());
-            values.put(MediaStore.Images.Media.MIME_TYPE, mimeType != null ? mimeType : "image/jpeg");
-            values.put(MediaStore.Images.Media.RELATIVE_PATH, "Pictures/ClipboardMedia");
-            values.put(MediaStore.Images.Media.IS_PENDING, 1); // Mark as pending during write
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, "clipboard_" + mediaClass + "_" + System.currentTimeMillis());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType != null ? mimeType : getDefaultMimeType(mediaClass));
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, getMediaStoreDirectory(mediaClass) + "/ClipboardMedia");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 1); // Mark as pending during write
             
-            Uri mediaUri = resolver.insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
+            Uri mediaUri = resolver.insert(getMediaStoreCollection(mediaClass), values);
             if (mediaUri == null) {
-                inputStream.close();
                 return null;
             }
+            journal.beginPending(mediaUri);
             
-            // Copy file content to MediaStore
-            try (java.io.OutputStream outputStream = resolver.openOutputStream(mediaUri)) {
-                if (outputStream != null) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
+            // Copy file content to MediaStore, hashing it on the way if nothing has yet
+            MessageDigest digest = session.getContentHash() == null ? MediaClipboardUtils.newSha256() : null;
+            long totalBytes;
+            try {
+                try (java.io.OutputStream outputStream = resolver.openOutputStream(mediaUri)) {
+                    if (outputStream == null) {
+                        throw new IOException("Cannot open MediaStore output stream");
                     }
+                    totalBytes = MediaClipboardUtils.copyStream(inputStream, outputStream, digest, session.getPayloadBytes());
                 }
+
+                // Publish the row only now that its content is complete
+                values.clear();
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                resolver.update(mediaUri, values, null, null);
+            } catch (Exception e) {
+                deleteStagedMediaUri(mediaUri); // Never leave a truncated or pending row behind
+                throw e;
+            }
+            journal.commitStaged(mediaUri, totalBytes);
+            stagedMediaUris.put(mediaUri, System.currentTimeMillis());
+            session.recordWrite(mediaUri.toString(), totalBytes);
+            if (digest != null) {
+                session.setContentHash(MediaClipboardUtils.toHex(digest.digest()));
             }
-            
-            inputStream.close();
-            
-            // Mark as not pending
-            values.clear();
-            values.put(MediaStore.Images.Media.IS_PENDING, 0);
-            resolver.update(mediaUri, values, null, null);
             
             android.util.Log.d("MediaClipboard", "Created MediaStore URI for clipboard: " + mediaUri.toString());
             return mediaUri;
@@ -791,19 +1719,62 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * MediaStore collection for a media class; anything that is not a picture, video or
+     * audio goes to Downloads (Android 10+)
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static Uri getMediaStoreCollection(String mediaClass) {
+        switch (mediaClass) {
+            case "image":
+                return MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+            case "video":
+                return MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
+            case "audio":
+                return MediaStore.Audio.Media.EXTERNAL_CONTENT_URI;
+            default:
+                return MediaStore.Downloads.EXTERNAL_CONTENT_URI;
+        }
+    }
+
+    /**
+     * Top-level shared directory MediaStore accepts for a media class
+     */
+    private static String getMediaStoreDirectory(String mediaClass) {
+        switch (mediaClass) {
+            case "image":
+                return Environment.DIRECTORY_PICTURES;
+            case "video":
+                return Environment.DIRECTORY_MOVIES;
+            case "audio":
+                return Environment.DIRECTORY_MUSIC;
+            default:
+                return Environment.DIRECTORY_DOWNLOADS;
+        }
+    }
+
+    /**
+     * MIME type used when the source's type is unknown
+     */
+    private static String getDefaultMimeType(String mediaClass) {
+        switch (mediaClass) {
+            case "image":
+                return "image/jpeg";
+            case "video":
+                return "video/mp4";
+            case "audio":
+                return "audio/mpeg";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
     /**
      * Copy file to external cache for clipboard compatibility (Android < 10)
      */
-    private Uri copyToExternalCacheForClipboard(Uri originalUri, String mimeType) {
+    private Uri copyToExternalCacheForClipboard(InputStream inputStream, String mimeType, MediaClipboardStorage.CopySession session) {
         try {
             Context context = getReactApplicationContext();
-            ContentResolver resolver = context.getContentResolver();
-            
-            // Read the original file
-            InputStream inputStream = resolver.openInputStream(originalUri);
-            if (inputStream == null) {
-                return null;
-            }
             
             // Create file in external cache (more accessible than internal cache)
             File externalCacheDir = context.getExternalCacheDir();
@@ -811,31 +1782,33 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
                 externalCacheDir = context.getCacheDir(); // Fallback to internal cache
             }
             
-            String extension = "jpg";
-            if (mimeType != null) {
-                if (mimeType.equals("image/png")) extension = "png";
-                else if (mimeType.equals("image/gif")) extension = "gif";
-                else if (mimeType.equals("image/webp")) extension = "webp";
+            String extension = mimeType != null ? MimeTypeMap.getSingleton().getExtensionFromMimeType(mimeType) : null;
+            if (extension == null) {
+                extension = mimeType == null || mimeType.startsWith("image/") ? "jpg" : "bin";
             }
             
-            String fileName = "clipboard_" + System.currentTimeMillis() + "." + extension;
+            String fileName = createTempFileName("clipboard_compat", extension);
             File clipboardFile = new File(externalCacheDir, fileName);
             temporaryFiles.add(clipboardFile); // Track for cleanup
             
-            // Copy file content
-            try (FileOutputStream outputStream = new FileOutputStream(clipboardFile)) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
+            // Copy file content through a partial file, hashing it on the way if nothing has yet
+            MessageDigest digest = session.getContentHash() == null ? MediaClipboardUtils.newSha256() : null;
+            File partialFile = MediaClipboardUtils.getPartialFile(clipboardFile);
+            long totalBytes;
+            try (FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+                totalBytes = MediaClipboardUtils.copyStream(inputStream, outputStream, digest, session.getPayloadBytes());
+            } catch (IOException e) {
+                partialFile.delete();
+                throw e;
+            }
+            MediaClipboardUtils.commitPartialFile(partialFile, clipboardFile);
+            session.recordWrite(clipboardFile, totalBytes);
+            if (digest != null) {
+                session.setContentHash(MediaClipboardUtils.toHex(digest.digest()));
             }
             
-            inputStream.close();
-            
-            // Return file URI (acceptable for older Android versions)
-            Uri fileUri = Uri.fromFile(clipboardFile);
-            android.util.Log.d("MediaClipboard", "Created external cache URI for clipboard: " + fileUri.toString());
+            Uri fileUri = shareStagedFile(clipboardFile);
+            android.util.Log.d("MediaClipboard", "Created external cache URI for clipboard: " + fileUri);
             return fileUri;
             
         } catch (Exception e) {
@@ -851,16 +1824,45 @@ public class MediaClipboardModule extends ReactContextBaseJavaModule {
         if (executorService != null && !executorService.isShutdown()) {
             executorService.shutdown();
         }
+        prefetcher.shutdown();
+        clipboardManager.removePrimaryClipChangedListener(historyListener);
+        history.close();
         // Clean up temporary files on module destroy
-        for (File tempFile : temporaryFiles) {
-            if (tempFile.exists()) {
-                if (tempFile.delete()) {
-                    android.util.Log.d("MediaClipboard", "Deleted temporary file: " + tempFile.getName());
-                } else {
-                    android.util.Log.e("MediaClipboard", "Failed to delete temporary file: " + tempFile.getName());
+        deleteTemporaryFiles();
+        if (executorService != null && !executorService.isTerminated()) {
+            // Copies already queued still run after shutdown; remove their files once they finish
+            Thread cleanup = new Thread(() -> {
+                try {
+                    executorService.awaitTermination(SHUTDOWN_CLEANUP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                deleteTemporaryFiles();
+            }, "MediaClipboardCleanup");
+            cleanup.setDaemon(true);
+            cleanup.start();
+        }
+    }
+
+    /**
+     * Delete every tracked temporary file. Entries whose file does not exist yet stay
+     * tracked, since an in-flight download only creates its file when it completes.
+     */
+    private void deleteTemporaryFiles() {
+        synchronized (temporaryFiles) {
+            Iterator<File> iterator = temporaryFiles.iterator();
+            while (iterator.hasNext()) {
+                File tempFile = iterator.next();
+                if (tempFile.exists()) {
+                    if (tempFile.delete()) {
+                        storage.release(tempFile);
+                        iterator.remove();
+                        android.util.Log.d("MediaClipboard", "Deleted temporary file: " + tempFile.getName());
+                    } else {
+                        android.util.Log.e("MediaClipboard", "Failed to delete temporary file: " + tempFile.getName());
+                    }
                 }
             }
         }
-        temporaryFiles.clear(); // Clear the list after cleanup
     }
 } 
\ No newline at end of file
@@ -0,0 +1,340 @@
+package com.mediaclipboard;
+
+import android.net.Uri;
+import android.os.Process;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stages media in the background before the user taps copy.
+ * Entries are kept in LRU order and bounded by entry count and staged bytes.
+ */
+public class MediaClipboardPrefetcher {
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final long DEFAULT_MAX_BYTES = 100L * 1024 * 1024; // 100 MB
+    private static final int THREAD_COUNT = 2;
+
+    /**
+     * Performs the actual staging work for a source
+     */
+    public interface Stager {
+        StagedMedia stage(String source) throws Exception;
+
+        /**
+         * Remove files or MediaStore rows that were staged for an entry nobody used
+         */
+        void discard(StagedMedia media);
+    }
+
+    /**
+     * Result of staging a source
+     */
+    public static class StagedMedia {
+        public final String localPath;
+        public final Uri clipboardUri; // Clipboard-compatible URI, or null to use localPath
+        public final String mimeType;
+        public final long bytes;
+        public final String contentHash; // SHA-256 if it was computed while staging, else null
+
+        public StagedMedia(String localPath, Uri clipboardUri, String mimeType, long bytes, String contentHash) {
+            this.localPath = localPath;
+            this.clipboardUri = clipboardUri;
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+            this.contentHash = contentHash;
+        }
+
+        boolean isValid() {
+            return new File(localPath).exists();
+        }
+    }
+
+    private static class Entry {
+        final String handle;
+        final String source;
+        FutureTask<StagedMedia> future;
+        StagedMedia media;
+        int uses; // Copies that took this entry from get()
+
+        Entry(String handle, String source) {
+            this.handle = handle;
+            this.source = source;
+        }
+    }
+
+    private final Stager stager;
+    private final ExecutorService executor;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order for LRU
+    private final Map<String, Entry> entriesByHandle = new HashMap<>();
+    private final AtomicLong handleCounter = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long stagedBytes;
+
+    public MediaClipboardPrefetcher(Stager stager) {
+        this.stager = stager;
+        this.executor = Executors.newFixedThreadPool(THREAD_COUNT, runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "MediaClipboardPrefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setLimits(int maxEntries, long maxBytes) {
+        List<Entry> evicted;
+        synchronized (this) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            evicted = evictIfNeeded(null);
+        }
+        discardInBackground(evicted);
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Start staging a source in the background, returning its handle.
+     * A source that is already staged or in flight keeps its existing handle.
+     */
+    public String prefetch(String source) {
+        Entry entry;
+        List<Entry> evicted;
+        synchronized (this) {
+            Entry existing = entries.get(source);
+            if (existing != null) {
+                if (!existing.future.isDone() || existing.media != null) {
+                    return existing.handle;
+                }
+                removeEntry(existing); // Failed earlier, try again
+            }
+
+            entry = new Entry("prefetch_" + handleCounter.incrementAndGet(), source);
+            entries.put(source, entry);
+            entriesByHandle.put(entry.handle, entry);
+            Entry staging = entry;
+            entry.future = new FutureTask<>(() -> {
+                StagedMedia media = stager.stage(source);
+                onStaged(staging, media);
+                return media;
+            });
+            executor.execute(entry.future);
+            evicted = evictIfNeeded(entry);
+        }
+        discardInBackground(evicted);
+        return entry.handle;
+    }
+
+    /**
+     * Get the staged media for a source, waiting if it is still in flight.
+     * Returns null if the source was never prefetched, failed or was cancelled;
+     * only the last two count as misses.
+     */
+    public StagedMedia get(String source) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(source);
+            if (entry == null) {
+                return null;
+            }
+            entry.uses++;
+        }
+
+        // If it is still queued behind background-priority work, stage it on the
+        // caller's thread instead of waiting; the queued run is then a no-op
+        entry.future.run();
+        if (entry.future.isCancelled()) {
+            Thread.interrupted(); // cancel(true) interrupts whichever thread ran it
+        }
+        try {
+            StagedMedia media = entry.future.get();
+            if (media != null && media.isValid()) {
+                hits.incrementAndGet();
+                return media;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            android.util.Log.w("MediaClipboard", "Prefetch failed for " + source + ": " + e.getCause());
+        } catch (Exception e) {
+            // Cancelled while waiting
+        }
+
+        synchronized (this) {
+            removeEntry(entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Forget the entry staged at localPath after it failed verification, so no later
+     * copy reuses it. Returns true if an earlier copy already took the entry: its
+     * files may still be on the clipboard, so the caller must leave them in place.
+     */
+    public synchronized boolean evictFailed(String localPath) {
+        for (Entry entry : entries.values()) {
+            if (entry.media != null && entry.media.localPath.equals(localPath)) {
+                removeEntry(entry);
+                return entry.uses > 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancel prefetches by handle, or all of them when handles is null
+     */
+    public void cancel(List<String> handles) {
+        List<Entry> cancelled = new ArrayList<>();
+        synchronized (this) {
+            if (handles == null) {
+                cancelled.addAll(entries.values());
+            } else {
+                for (String handle : handles) {
+                    Entry entry = entriesByHandle.get(handle);
+                    if (entry != null) {
+                        cancelled.add(entry);
+                    }
+                }
+            }
+            for (Entry entry : cancelled) {
+                removeEntry(entry);
+            }
+        }
+        for (Entry entry : cancelled) {
+            discard(entry);
+        }
+    }
+
+    public void shutdown() {
+        cancel(null);
+        executor.shutdownNow();
+    }
+
+    private void onStaged(Entry entry, StagedMedia media) {
+        boolean cancelled;
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            cancelled = entriesByHandle.get(entry.handle) != entry;
+            if (!cancelled) {
+                entry.media = media;
+                stagedBytes += media.bytes;
+                evicted = evictIfNeeded(entry);
+            }
+        }
+        if (cancelled && media != null) {
+            // Cancelled after staging finished
+            stager.discard(media);
+        }
+        // Off the JS thread already, so discard right here
+        for (Entry evictedEntry : evicted) {
+            discard(evictedEntry);
+        }
+    }
+
+    /**
+     * Drop least recently used entries until within limits, returning them so the
+     * caller can discard their files once it has released the lock. The given entry
+     * is kept unless it alone exceeds the byte cap.
+     */
+    private List<Entry> evictIfNeeded(Entry keep) {
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() - evicted.size() > maxEntries || stagedBytes > maxBytes) && iterator.hasNext()) {
+            Entry candidate = iterator.next();
+            if (candidate == keep && !(keep.media != null && keep.media.bytes > maxBytes)) {
+                continue;
+            }
+            evicted.add(candidate);
+            if (candidate.media != null) {
+                stagedBytes -= candidate.media.bytes;
+            }
+        }
+        for (Entry entry : evicted) {
+            entries.remove(entry.source);
+            entriesByHandle.remove(entry.handle);
+            entry.future.cancel(true);
+        }
+        return evicted;
+    }
+
+    /**
+     * Discard evicted entries on a prefetch thread; deleting files and MediaStore rows
+     * does not belong on the JS thread that called prefetch or setLimits
+     */
+    private void discardInBackground(List<Entry> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                for (Entry entry : evicted) {
+                    discard(entry);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down meanwhile; nothing else will clean these up
+            for (Entry entry : evicted) {
+                discard(entry);
+            }
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        if (entriesByHandle.remove(entry.handle) == null) {
+            return;
+        }
+        entries.remove(entry.source);
+        entry.future.cancel(true);
+        if (entry.media != null) {
+            stagedBytes -= entry.media.bytes;
+        }
+    }
+
+    private void discard(Entry entry) {
+        if (entry.media != null && entry.uses == 0) {
+            stager.discard(entry.media);
+        }
+    }
+
+    /**
+     * Snapshot of prefetch metrics for JS
+     */
+    public synchronized WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putInt("entries", entries.size());
+        map.putDouble("stagedBytes", stagedBytes);
+        map.putInt("maxEntries", maxEntries);
+        map.putDouble("maxBytes", maxBytes);
+        map.putDouble("hits", hits.get());
+        map.putDouble("misses", misses.get());
+        return map;
+    }
+}
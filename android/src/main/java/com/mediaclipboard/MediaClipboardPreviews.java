@@ -0,0 +1,186 @@
+package com.mediaclipboard;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.os.Build;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Poster frames for video and cover art for audio, extracted with MediaMetadataRetriever
+ * and cached as JPEG files so repeat copies of the same source reuse them.
+ */
+public class MediaClipboardPreviews {
+
+    public static final int DEFAULT_PREVIEW_SIZE = 512;
+    private static final int JPEG_QUALITY = 85;
+    private static final long MAX_POSTER_TIME_US = 1000000; // Poster frame at most 1 second in
+
+    // Sources known to have no frame or embedded picture, so they are not probed again
+    private final Set<String> missingPreviews = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    /**
+     * Cache file for a source at a given size. The name is derived from the path,
+     * size and modification time, so an edited source gets a fresh preview.
+     */
+    public File getPreviewFile(File source, int maxSize, File targetDir) {
+        String key = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified() + "|" + maxSize;
+        String hash = MediaClipboardUtils.sha256(key.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return new File(targetDir, "clipboard_preview_" + hash + ".jpg");
+    }
+
+    /**
+     * Check if a preview for the source is already cached in the given directory
+     */
+    public boolean isCached(File source, int maxSize, File targetDir) {
+        return getPreviewFile(source, maxSize, targetDir).exists();
+    }
+
+    /**
+     * Get the cached preview for a source or extract a new one.
+     * Returns null if the source has no video frame or embedded picture.
+     */
+    public File getPreview(File source, boolean audio, int maxSize, File targetDir) throws IOException {
+        File previewFile = getPreviewFile(source, maxSize, targetDir);
+        if (previewFile.exists()) {
+            previewFile.setLastModified(System.currentTimeMillis()); // Keep it past the next cleanup
+            hits.incrementAndGet();
+            return previewFile;
+        }
+        if (missingPreviews.contains(previewFile.getName())) {
+            return null;
+        }
+
+        Bitmap bitmap = audio ? extractAlbumArt(source, maxSize) : extractPosterFrame(source, maxSize);
+        if (bitmap == null) {
+            missingPreviews.add(previewFile.getName());
+            return null;
+        }
+
+        // Write under a unique name first so concurrent copies never see a partial JPEG
+        File partialFile = MediaClipboardUtils.getPartialFile(previewFile);
+        try (FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, outputStream);
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        } finally {
+            bitmap.recycle();
+        }
+        if (!partialFile.renameTo(previewFile)) {
+            partialFile.delete();
+            if (!previewFile.exists()) {
+                throw new IOException("Could not store preview: " + previewFile.getAbsolutePath());
+            }
+        }
+
+        generated.incrementAndGet();
+        android.util.Log.d("MediaClipboard", "Created preview for " + source.getName() + ": " + previewFile.getAbsolutePath());
+        return previewFile;
+    }
+
+    /**
+     * Extract the sync frame nearest the poster time. Only that keyframe is decoded,
+     * and on Android 8.1+ it is scaled by the decoder instead of at full resolution.
+     */
+    private Bitmap extractPosterFrame(File source, int maxSize) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(source.getAbsolutePath());
+            long timeUs = 0;
+            String duration = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            if (duration != null) {
+                timeUs = Math.min(MAX_POSTER_TIME_US, Long.parseLong(duration) * 1000 / 2);
+            }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                return retriever.getScaledFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_CLOSEST_SYNC, maxSize, maxSize);
+            }
+            return scaleDown(retriever.getFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_CLOSEST_SYNC), maxSize);
+        } catch (Exception e) {
+            android.util.Log.w("MediaClipboard", "Could not extract video frame from " + source.getName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            release(retriever);
+        }
+    }
+
+    /**
+     * Decode embedded cover art, subsampling large pictures while decoding
+     */
+    private Bitmap extractAlbumArt(File source, int maxSize) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(source.getAbsolutePath());
+            byte[] picture = retriever.getEmbeddedPicture();
+            if (picture == null) {
+                return null;
+            }
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(picture, 0, picture.length, options);
+            int sampleSize = 1;
+            while (options.outWidth / (sampleSize * 2) >= maxSize && options.outHeight / (sampleSize * 2) >= maxSize) {
+                sampleSize *= 2;
+            }
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = sampleSize;
+            return scaleDown(BitmapFactory.decodeByteArray(picture, 0, picture.length, options), maxSize);
+        } catch (Exception e) {
+            android.util.Log.w("MediaClipboard", "Could not extract cover art from " + source.getName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            release(retriever);
+        }
+    }
+
+    private static Bitmap scaleDown(Bitmap bitmap, int maxSize) {
+        if (bitmap == null) {
+            return null;
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (width <= maxSize && height <= maxSize) {
+            return bitmap;
+        }
+        float scale = Math.min((float) maxSize / width, (float) maxSize / height);
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)), true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private static void release(MediaMetadataRetriever retriever) {
+        try {
+            retriever.release();
+        } catch (Exception e) {
+            // Nothing left to clean up
+        }
+    }
+
+    /**
+     * Snapshot of preview cache metrics for JS
+     */
+    public WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("hits", hits.get());
+        map.putDouble("generated", generated.get());
+        map.putInt("missing", missingPreviews.size());
+        return map;
+    }
+}
@@ -0,0 +1,329 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage accountant for clipboard staging.
+ * Tracks the bytes each copy writes to disk, the total currently staged by the module,
+ * and enforces per-copy and aggregate quotas.
+ */
+public class MediaClipboardStorage {
+
+    public static final long UNLIMITED = -1;
+    private static final int RECENT_COPY_LIMIT = 20;
+
+    private volatile long quotaBytes = UNLIMITED;   // Max bytes staged on disk at any time
+    private volatile long maxCopyBytes = UNLIMITED; // Max bytes a single copy may write
+
+    private final Map<String, Long> stagedEntries = new ConcurrentHashMap<>(); // File path or MediaStore URI -> bytes
+    private final AtomicLong stagedBytes = new AtomicLong();
+    private final AtomicLong totalPayloadBytes = new AtomicLong();
+    private final AtomicLong totalBytesWritten = new AtomicLong();
+    private final AtomicLong copies = new AtomicLong();
+    private final AtomicLong prefetches = new AtomicLong();
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong refusedCopies = new AtomicLong();
+    private final AtomicLong downgradedCopies = new AtomicLong();
+    private final Deque<CopySession> recentCopies = new ArrayDeque<>();
+
+    /**
+     * Raised when staging a copy would exceed the configured quota
+     */
+    public static class QuotaExceededException extends IOException {
+        public QuotaExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Per-copy write accounting
+     */
+    public class CopySession {
+        private final long startedAt = System.currentTimeMillis();
+        private long payloadBytes;
+        private long bytesWritten;
+        private long reservedBytes; // Counted in stagedBytes until the write is recorded
+        private int writes;
+        private boolean downgraded;
+        private boolean prefetch;
+        private boolean conversion;
+        private String stagingPath = "none";
+        private String contentHash;
+
+        /**
+         * Record the size of the media being copied
+         */
+        public void setPayloadBytes(long bytes) {
+            this.payloadBytes = bytes;
+        }
+
+        public long getPayloadBytes() {
+            return payloadBytes;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * Record the SHA-256 of the payload, computed by whichever loop first wrote it
+         */
+        public void setContentHash(String contentHash) {
+            this.contentHash = contentHash;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * Mark this session as background staging rather than a user copy
+         */
+        public void markPrefetch() {
+            prefetch = true;
+        }
+
+        /**
+         * Mark this session as an alternate format conversion for a paste target
+         */
+        public void markConversion() {
+            conversion = true;
+        }
+
+        /**
+         * Reserve room for a write of the given size if it stays within both quotas.
+         * The reservation counts towards the staged total right away, so concurrent
+         * copies cannot all pass the check and overshoot the quota together.
+         */
+        public boolean tryReserve(long bytes) {
+            if (bytes < 0) {
+                return true; // Unknown size, checked again as data is written
+            }
+            if (maxCopyBytes != UNLIMITED && bytesWritten + reservedBytes + bytes > maxCopyBytes) {
+                return false;
+            }
+            if (!reserveStaged(bytes)) {
+                return false;
+            }
+            reservedBytes += bytes;
+            return true;
+        }
+
+        /**
+         * Bytes this copy may still write, or UNLIMITED
+         */
+        public long getRemainingBytes() {
+            long remaining = Long.MAX_VALUE;
+            if (maxCopyBytes != UNLIMITED) {
+                remaining = Math.min(remaining, maxCopyBytes - bytesWritten);
+            }
+            if (quotaBytes != UNLIMITED) {
+                remaining = Math.min(remaining, quotaBytes - stagedBytes.get());
+            }
+            return remaining == Long.MAX_VALUE ? UNLIMITED : Math.max(0, remaining);
+        }
+
+        /**
+         * Reserve room for a write, failing if it would exceed a quota
+         */
+        public void reserve(long bytes) throws QuotaExceededException {
+            if (!tryReserve(bytes)) {
+                throw new QuotaExceededException("Staging " + bytes + " bytes would exceed the clipboard storage quota"
+                        + " (per copy: " + maxCopyBytes + ", total: " + quotaBytes + ", staged: " + stagedBytes.get() + ")");
+            }
+        }
+
+        /**
+         * Record a completed write of a staged file
+         */
+        public void recordWrite(File file, long bytes) {
+            recordWrite(file.getAbsolutePath(), bytes);
+        }
+
+        /**
+         * Record a completed write keyed by file path or MediaStore URI. Writes within a
+         * copy happen one after another, so this settles the outstanding reservation,
+         * including what is left of one whose write failed or came in short.
+         */
+        public void recordWrite(String key, long bytes) {
+            bytesWritten += bytes;
+            writes++;
+            releaseReservation();
+            track(key, bytes);
+        }
+
+        private void releaseReservation() {
+            stagedBytes.addAndGet(-reservedBytes);
+            reservedBytes = 0;
+        }
+
+        /**
+         * Mark that the copy fell back to a cheaper staging path to respect quotas
+         */
+        public void markDowngraded() {
+            downgraded = true;
+        }
+
+        public void setStagingPath(String stagingPath) {
+            this.stagingPath = stagingPath;
+        }
+
+        public double getWriteAmplification() {
+            return payloadBytes > 0 ? (double) bytesWritten / payloadBytes : 0;
+        }
+
+        WritableMap toMap() {
+            WritableMap map = Arguments.createMap();
+            map.putDouble("startedAt", startedAt);
+            map.putDouble("payloadBytes", payloadBytes);
+            map.putDouble("bytesWritten", bytesWritten);
+            map.putInt("writes", writes);
+            map.putDouble("writeAmplification", getWriteAmplification());
+            map.putString("stagingPath", stagingPath);
+            map.putBoolean("downgraded", downgraded);
+            map.putBoolean("prefetch", prefetch);
+            map.putBoolean("conversion", conversion);
+            map.putString("contentHash", contentHash);
+            return map;
+        }
+    }
+
+    public void setQuotaBytes(long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+
+    public void setMaxCopyBytes(long maxCopyBytes) {
+        this.maxCopyBytes = maxCopyBytes;
+    }
+
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    public long getMaxCopyBytes() {
+        return maxCopyBytes;
+    }
+
+    public long getStagedBytes() {
+        return stagedBytes.get();
+    }
+
+    public CopySession beginCopy() {
+        return new CopySession();
+    }
+
+    /**
+     * Fold a finished copy into the aggregate figures
+     */
+    public void finishCopy(CopySession session) {
+        session.releaseReservation(); // Room reserved for writes that never happened
+        totalPayloadBytes.addAndGet(session.payloadBytes);
+        totalBytesWritten.addAndGet(session.bytesWritten);
+        (session.prefetch ? prefetches : session.conversion ? conversions : copies).incrementAndGet();
+        if (session.downgraded) {
+            downgradedCopies.incrementAndGet();
+        }
+        synchronized (recentCopies) {
+            recentCopies.addFirst(session);
+            while (recentCopies.size() > RECENT_COPY_LIMIT) {
+                recentCopies.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Add to the staged total unless that would exceed the quota
+     */
+    private boolean reserveStaged(long bytes) {
+        while (true) {
+            long staged = stagedBytes.get();
+            long quota = quotaBytes;
+            if (quota != UNLIMITED && staged + bytes > quota) {
+                return false;
+            }
+            if (stagedBytes.compareAndSet(staged, staged + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Count a copy that was refused because of the quota
+     */
+    public void refuseCopy() {
+        refusedCopies.incrementAndGet();
+    }
+
+    /**
+     * Account for a staged file left behind by a previous process
+     */
+    public void trackExisting(File file) {
+        track(file.getAbsolutePath(), file.length());
+    }
+
+    /**
+     * Account for a staged MediaStore entry left behind by a previous process
+     */
+    public void trackExisting(String key, long bytes) {
+        track(key, bytes);
+    }
+
+    /**
+     * Release the bytes of a staged file or MediaStore entry that was deleted
+     */
+    public void release(String key) {
+        Long bytes = stagedEntries.remove(key);
+        if (bytes != null) {
+            stagedBytes.addAndGet(-bytes);
+        }
+    }
+
+    public void release(File file) {
+        release(file.getAbsolutePath());
+    }
+
+    private void track(String key, long bytes) {
+        Long previous = stagedEntries.put(key, bytes);
+        stagedBytes.addAndGet(bytes - (previous != null ? previous : 0));
+    }
+
+    /**
+     * Snapshot of storage metrics for JS
+     */
+    public WritableMap toMap() {
+        long payload = totalPayloadBytes.get();
+        long written = totalBytesWritten.get();
+
+        WritableMap map = Arguments.createMap();
+        map.putDouble("quotaBytes", quotaBytes);
+        map.putDouble("maxCopyBytes", maxCopyBytes);
+        map.putDouble("stagedBytes", stagedBytes.get());
+        map.putDouble("totalPayloadBytes", payload);
+        map.putDouble("totalBytesWritten", written);
+        map.putDouble("writeAmplification", payload > 0 ? (double) written / payload : 0);
+        map.putDouble("copies", copies.get());
+        map.putDouble("prefetches", prefetches.get());
+        map.putDouble("conversions", conversions.get());
+        map.putDouble("refusedCopies", refusedCopies.get());
+        map.putDouble("downgradedCopies", downgradedCopies.get());
+
+        WritableArray recent = Arguments.createArray();
+        synchronized (recentCopies) {
+            for (CopySession session : recentCopies) {
+                recent.pushMap(session.toMap());
+            }
+        }
+        map.putArray("recentCopies", recent);
+        return map;
+    }
+}
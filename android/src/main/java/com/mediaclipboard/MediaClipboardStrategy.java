@@ -0,0 +1,213 @@
+package com.mediaclipboard;
+
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses how a copy reaches the clipboard: share the FileProvider URI as-is, or stage a
+ * compatibility copy in MediaStore (Android 10+) or the external cache (older versions)
+ * that any app can read. Starts from rules on API level, payload size and MIME type, then
+ * adapts to the staging cost and failures measured for each route and media class.
+ */
+public class MediaClipboardStrategy {
+
+    public static final String FILE_PROVIDER = "fileProvider";
+    public static final String MEDIA_STORE = "mediaStore";
+    public static final String EXTERNAL_CACHE = "externalCache";
+
+    public static final long SMALL_PAYLOAD_BYTES = 256 * 1024; // Below this a FileProvider grant is cheaper than a copy
+    public static final long LATENCY_BUDGET_MS = 1500;         // Share lazily when a copy is predicted to take longer
+    private static final double DEFAULT_MS_PER_MB = 25;        // Prior until copies are measured, roughly 40 MB/s
+    private static final double DEFAULT_OVERHEAD_MS = 40;      // Prior fixed cost of inserting and publishing a copy
+    private static final double EWMA_WEIGHT = 0.3;
+    private static final long MEASURE_THROUGHPUT_BYTES = 1024 * 1024; // Smaller copies only update the fixed cost
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+    private static final long FAILURE_COOLDOWN_MS = 10 * 60 * 1000; // Retry a failing route after 10 minutes
+
+    private static final String[] MEDIA_CLASSES = {"image", "video", "audio", "file"};
+
+    /**
+     * Source of the current time, replaceable in tests
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    /**
+     * Measured cost and failures of one route for one media class
+     */
+    private static class RouteStats {
+        double msPerMb = DEFAULT_MS_PER_MB;
+        double overheadMs = DEFAULT_OVERHEAD_MS;
+        long successes;
+        long failures;
+        int consecutiveFailures;
+        long lastFailureAt;
+    }
+
+    private final int sdkInt;
+    private final Clock clock;
+    private final Map<String, RouteStats> stats = new LinkedHashMap<>(); // "<route>:<mediaClass>"
+    private final Map<String, Long> choices = new LinkedHashMap<>();
+
+    public MediaClipboardStrategy() {
+        this(Build.VERSION.SDK_INT, System::currentTimeMillis);
+    }
+
+    MediaClipboardStrategy(int sdkInt, Clock clock) {
+        this.sdkInt = sdkInt;
+        this.clock = clock;
+        choices.put(FILE_PROVIDER, 0L);
+        choices.put(getCompatibilityRoute(), 0L);
+    }
+
+    /**
+     * Routes to try for a payload, cheapest expected first. The list always ends with
+     * FILE_PROVIDER, which needs no copy and is the fallback when the others fail.
+     */
+    public synchronized List<String> plan(@Nullable String mimeType, long bytes, boolean inExternalCache) {
+        String compatibilityRoute = getCompatibilityRoute();
+        if (EXTERNAL_CACHE.equals(compatibilityRoute) && inExternalCache) {
+            return routes(EXTERNAL_CACHE); // Already where the copy would go, so it is free
+        }
+        if (bytes >= 0 && bytes <= SMALL_PAYLOAD_BYTES) {
+            return routes();
+        }
+
+        RouteStats routeStats = getStats(compatibilityRoute, getMediaClass(mimeType));
+        if (isCoolingDown(routeStats)) {
+            return routes();
+        }
+        if (bytes < 0 || predictMillis(routeStats, bytes) > LATENCY_BUDGET_MS) {
+            return routes();
+        }
+        return routes(compatibilityRoute);
+    }
+
+    /**
+     * Record a compatibility copy that completed, updating the route's cost estimate
+     */
+    public synchronized void recordSuccess(String route, @Nullable String mimeType, long bytes, long elapsedNanos) {
+        RouteStats routeStats = getStats(route, getMediaClass(mimeType));
+        double elapsedMs = elapsedNanos / 1e6;
+        if (bytes >= MEASURE_THROUGHPUT_BYTES) {
+            double observed = Math.max(0, elapsedMs - routeStats.overheadMs) / (bytes / (1024.0 * 1024.0));
+            routeStats.msPerMb += EWMA_WEIGHT * (observed - routeStats.msPerMb);
+        } else {
+            routeStats.overheadMs += EWMA_WEIGHT * (elapsedMs - routeStats.overheadMs);
+        }
+        routeStats.successes++;
+        routeStats.consecutiveFailures = 0;
+        recordChoice(route);
+    }
+
+    /**
+     * Record a compatibility copy that failed; repeated failures pause the route
+     */
+    public synchronized void recordFailure(String route, @Nullable String mimeType) {
+        RouteStats routeStats = getStats(route, getMediaClass(mimeType));
+        routeStats.failures++;
+        routeStats.consecutiveFailures++;
+        routeStats.lastFailureAt = clock.currentTimeMillis();
+    }
+
+    /**
+     * Record the route a copy ended up on
+     */
+    public synchronized void recordChoice(String route) {
+        Long count = choices.get(route);
+        choices.put(route, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Compatibility route available on this Android version
+     */
+    public String getCompatibilityRoute() {
+        return sdkInt >= Build.VERSION_CODES.Q ? MEDIA_STORE : EXTERNAL_CACHE;
+    }
+
+    /**
+     * Media class used to keep cost estimates apart, e.g. "video" for video/mp4
+     */
+    public static String getMediaClass(@Nullable String mimeType) {
+        if (mimeType != null) {
+            for (String mediaClass : MEDIA_CLASSES) {
+                if (mimeType.startsWith(mediaClass + "/")) {
+                    return mediaClass;
+                }
+            }
+        }
+        return "file";
+    }
+
+    private boolean isCoolingDown(RouteStats routeStats) {
+        // After the cooldown one attempt is let through; another failure restarts it
+        return routeStats.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES
+                && clock.currentTimeMillis() - routeStats.lastFailureAt < FAILURE_COOLDOWN_MS;
+    }
+
+    private static double predictMillis(RouteStats routeStats, long bytes) {
+        return routeStats.overheadMs + routeStats.msPerMb * bytes / (1024.0 * 1024.0);
+    }
+
+    private RouteStats getStats(String route, String mediaClass) {
+        String key = route + ":" + mediaClass;
+        RouteStats routeStats = stats.get(key);
+        if (routeStats == null) {
+            routeStats = new RouteStats();
+            stats.put(key, routeStats);
+        }
+        return routeStats;
+    }
+
+    private static List<String> routes(String... preferred) {
+        List<String> routes = new ArrayList<>(preferred.length + 1);
+        Collections.addAll(routes, preferred);
+        routes.add(FILE_PROVIDER);
+        return routes;
+    }
+
+    /**
+     * Snapshot of strategy metrics for JS
+     */
+    public synchronized WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString("compatibilityRoute", getCompatibilityRoute());
+        map.putDouble("smallPayloadBytes", SMALL_PAYLOAD_BYTES);
+        map.putDouble("latencyBudgetMs", LATENCY_BUDGET_MS);
+
+        WritableMap choiceMap = Arguments.createMap();
+        for (Map.Entry<String, Long> entry : choices.entrySet()) {
+            choiceMap.putDouble(entry.getKey(), entry.getValue());
+        }
+        map.putMap("choices", choiceMap);
+
+        WritableArray routeArray = Arguments.createArray();
+        for (Map.Entry<String, RouteStats> entry : stats.entrySet()) {
+            String[] key = entry.getKey().split(":", 2);
+            RouteStats routeStats = entry.getValue();
+            WritableMap routeMap = Arguments.createMap();
+            routeMap.putString("route", key[0]);
+            routeMap.putString("mediaClass", key[1]);
+            routeMap.putDouble("successes", routeStats.successes);
+            routeMap.putDouble("failures", routeStats.failures);
+            routeMap.putDouble("msPerMb", routeStats.msPerMb);
+            routeMap.putDouble("overheadMs", routeStats.overheadMs);
+            routeMap.putBoolean("coolingDown", isCoolingDown(routeStats));
+            routeArray.pushMap(routeMap);
+        }
+        map.putArray("routes", routeArray);
+        return map;
+    }
+}
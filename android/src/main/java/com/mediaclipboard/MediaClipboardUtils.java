@@ -5,13 +5,33 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
 import android.webkit.MimeTypeMap;
+import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class MediaClipboardUtils {
 
     private static final String FILE_PROVIDER_AUTHORITY = ".mediaclipboard.fileprovider";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    public static final String PARTIAL_SUFFIX = ".part";
+    private static final int WRITE_CHUNK_BYTES = 256 * 1024;
+
+    /**
+     * Raised when staged media does not match the expected hash or size
+     */
+    public static class IntegrityException extends IOException {
+        public IntegrityException(String message) {
+            super(message);
+        }
+    }
 
     /**
      * Get content URI for a file, handling different Android versions and storage access
@@ -99,4 +119,134 @@ public class MediaClipboardUtils {
         String mimeType = getMimeType(filePath);
         return "application/pdf".equals(mimeType);
     }
+
+    /**
+     * Copy a stream, updating the digest (if any) with each chunk as it is written.
+     * contentLength (negative if unknown) picks the size of the pooled buffer.
+     */
+    public static long copyStream(InputStream inputStream, OutputStream outputStream, @Nullable MessageDigest digest, long contentLength) throws IOException {
+        return copyStream(inputStream, outputStream, digest, contentLength, MediaClipboardStorage.UNLIMITED);
+    }
+
+    /**
+     * Copy a stream, failing once more than maxBytes have been read
+     */
+    public static long copyStream(InputStream inputStream, OutputStream outputStream, @Nullable MessageDigest digest, long contentLength, long maxBytes) throws IOException {
+        MediaClipboardBufferPool bufferPool = MediaClipboardBufferPool.shared();
+        byte[] buffer = bufferPool.acquire(contentLength);
+        try {
+            long totalBytes = 0;
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+                if (digest != null) {
+                    digest.update(buffer, 0, bytesRead);
+                }
+                totalBytes += bytesRead;
+                if (maxBytes != MediaClipboardStorage.UNLIMITED && totalBytes > maxBytes) {
+                    throw new MediaClipboardStorage.QuotaExceededException("Copy exceeds the remaining storage quota of " + maxBytes + " bytes");
+                }
+            }
+            return totalBytes;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Name a staged file is written under until it is complete. Unique per thread so
+     * concurrent writers of the same target never share a partial file.
+     */
+    public static File getPartialFile(File target) {
+        return new File(target.getParentFile(), target.getName() + "." + Thread.currentThread().getId() + PARTIAL_SUFFIX);
+    }
+
+    public static boolean isPartialFile(File file) {
+        return file.getName().endsWith(PARTIAL_SUFFIX);
+    }
+
+    /**
+     * Move a completed partial file into place. rename() is atomic within a directory,
+     * so readers see either no target or the whole file, never a truncated one.
+     */
+    public static void commitPartialFile(File partialFile, File target) throws IOException {
+        if (!partialFile.renameTo(target)) {
+            partialFile.delete();
+            throw new IOException("Could not move " + partialFile.getName() + " to " + target.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Write a complete file through a partial file and rename
+     */
+    public static void writeFileAtomically(File target, byte[] data) throws IOException {
+        writeFileAtomically(target, data, null);
+    }
+
+    /**
+     * Write a complete file through a partial file and rename, updating the digest with
+     * each chunk as it is written so the data is hashed while still in cache
+     */
+    public static void writeFileAtomically(File target, byte[] data, @Nullable MessageDigest digest) throws IOException {
+        File partialFile = getPartialFile(target);
+        try (FileOutputStream outputStream = new FileOutputStream(partialFile)) {
+            for (int offset = 0; offset < data.length; offset += WRITE_CHUNK_BYTES) {
+                int length = Math.min(WRITE_CHUNK_BYTES, data.length - offset);
+                outputStream.write(data, offset, length);
+                if (digest != null) {
+                    digest.update(data, offset, length);
+                }
+            }
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        }
+        commitPartialFile(partialFile, target);
+    }
+
+    /**
+     * New SHA-256 digest; SHA-256 is guaranteed on every Android version
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * SHA-256 of an in-memory payload as lowercase hex
+     */
+    public static String sha256(byte[] data) {
+        return toHex(newSha256().digest(data));
+    }
+
+    /**
+     * SHA-256 of a file as lowercase hex. Reads the whole file, so only used when no
+     * copy loop has already hashed the content.
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        MediaClipboardBufferPool bufferPool = MediaClipboardBufferPool.shared();
+        byte[] buffer = bufferPool.acquire(file.length());
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
 } 
\ No newline at end of file
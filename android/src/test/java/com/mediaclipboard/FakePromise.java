@@ -0,0 +1,150 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Promise that records how a @ReactMethod settled, so tests can wait for the
+ * executor to finish a copy and assert on the result or error code.
+ */
+class FakePromise implements Promise {
+
+    private static final long DEFAULT_TIMEOUT_MS = 30000;
+
+    private final CountDownLatch settled = new CountDownLatch(1);
+    private final AtomicInteger settleCount = new AtomicInteger();
+    private final long createdAtNanos = System.nanoTime();
+    private volatile long settledAtNanos;
+    private volatile boolean resolved;
+    private volatile Object value;
+    private volatile String code;
+    private volatile String message;
+    private volatile Throwable throwable;
+
+    /**
+     * Wait for the promise to settle, failing the test on timeout
+     */
+    FakePromise await() throws InterruptedException {
+        return await(DEFAULT_TIMEOUT_MS);
+    }
+
+    FakePromise await(long timeoutMs) throws InterruptedException {
+        assertTrue("Promise did not settle within " + timeoutMs + " ms", settled.await(timeoutMs, TimeUnit.MILLISECONDS));
+        return this;
+    }
+
+    boolean isResolved() {
+        return resolved;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    String getCode() {
+        return code;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    Throwable getThrowable() {
+        return throwable;
+    }
+
+    /**
+     * Number of times resolve/reject was called; anything but 1 is a bug in the module
+     */
+    int getSettleCount() {
+        return settleCount.get();
+    }
+
+    /**
+     * Time from creating the promise to it settling
+     */
+    long getLatencyNanos() {
+        return settledAtNanos - createdAtNanos;
+    }
+
+    /**
+     * Describe the outcome for assertion messages
+     */
+    String describe() {
+        return resolved ? "resolved with " + value : "rejected with " + code + ": " + message;
+    }
+
+    @Override
+    public void resolve(Object value) {
+        this.value = value;
+        this.resolved = true;
+        settle();
+    }
+
+    @Override
+    public void reject(String code, String message) {
+        reject(code, message, null, null);
+    }
+
+    @Override
+    public void reject(String code, Throwable throwable) {
+        reject(code, throwable != null ? throwable.getMessage() : null, throwable, null);
+    }
+
+    @Override
+    public void reject(String code, String message, Throwable throwable) {
+        reject(code, message, throwable, null);
+    }
+
+    @Override
+    public void reject(Throwable throwable) {
+        reject(null, throwable != null ? throwable.getMessage() : null, throwable, null);
+    }
+
+    @Override
+    public void reject(Throwable throwable, WritableMap userInfo) {
+        reject(null, throwable != null ? throwable.getMessage() : null, throwable, userInfo);
+    }
+
+    @Override
+    public void reject(String code, WritableMap userInfo) {
+        reject(code, null, null, userInfo);
+    }
+
+    @Override
+    public void reject(String code, Throwable throwable, WritableMap userInfo) {
+        reject(code, throwable != null ? throwable.getMessage() : null, throwable, userInfo);
+    }
+
+    @Override
+    public void reject(String code, String message, WritableMap userInfo) {
+        reject(code, message, null, userInfo);
+    }
+
+    @Override
+    public void reject(String code, String message, Throwable throwable, WritableMap userInfo) {
+        this.code = code;
+        this.message = message;
+        this.throwable = throwable;
+        settle();
+    }
+
+    @Override
+    @Deprecated
+    public void reject(String message) {
+        reject(null, message, null, null);
+    }
+
+    private void settle() {
+        if (settleCount.incrementAndGet() == 1) {
+            settledAtNanos = System.nanoTime();
+        }
+        settled.countDown();
+    }
+}
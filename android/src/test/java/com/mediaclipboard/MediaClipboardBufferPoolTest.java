@@ -0,0 +1,186 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MediaClipboardBufferPoolTest {
+
+    private static final int BURST_THREADS = 8;
+    private static final int BURST_COPIES_PER_THREAD = 200;
+    private static final int BURST_CONTENT_BYTES = 2 * 1024 * 1024;
+
+    private MockedStatic<Arguments> arguments;
+
+    @Before
+    public void setUp() {
+        arguments = MediaClipboardTestSupport.mockArguments();
+    }
+
+    @After
+    public void tearDown() {
+        arguments.close();
+    }
+
+    @Test
+    public void bufferSizeFollowsContentLength() {
+        assertEquals(MediaClipboardBufferPool.SMALL_BUFFER_SIZE, MediaClipboardBufferPool.bufferSizeFor(-1));
+        assertEquals(MediaClipboardBufferPool.SMALL_BUFFER_SIZE, MediaClipboardBufferPool.bufferSizeFor(512 * 1024));
+        assertEquals(MediaClipboardBufferPool.MEDIUM_BUFFER_SIZE, MediaClipboardBufferPool.bufferSizeFor(4 * 1024 * 1024));
+        assertEquals(MediaClipboardBufferPool.LARGE_BUFFER_SIZE, MediaClipboardBufferPool.bufferSizeFor(64L * 1024 * 1024));
+    }
+
+    @Test
+    public void releasedBuffersAreReused() {
+        MediaClipboardBufferPool pool = new MediaClipboardBufferPool();
+        byte[] first = pool.acquire(-1);
+        pool.release(first);
+
+        assertSame(first, pool.acquire(-1));
+        assertNotSame(first, pool.acquire(-1));
+
+        ReadableMap metrics = pool.toMap();
+        assertEquals(1.0, metrics.getDouble("hits"), 0);
+        assertEquals(2.0, metrics.getDouble("misses"), 0);
+    }
+
+    @Test
+    public void idleBuffersAreBounded() {
+        MediaClipboardBufferPool pool = new MediaClipboardBufferPool();
+        List<byte[]> buffers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            buffers.add(pool.acquire(-1));
+        }
+        for (byte[] buffer : buffers) {
+            pool.release(buffer);
+        }
+        pool.release(new byte[1000]); // Not from the pool, ignored
+
+        ReadableMap metrics = pool.toMap();
+        assertEquals(2.0, metrics.getDouble("dropped"), 0);
+        assertEquals(4.0 * MediaClipboardBufferPool.SMALL_BUFFER_SIZE, metrics.getDouble("pooledBytes"), 0);
+    }
+
+    /**
+     * Burst of concurrent copies through the pooled copy loop versus a loop that
+     * allocates its buffer per copy, reporting heap allocation and GC activity.
+     */
+    @Test
+    public void pooledCopiesAllocateLessUnderBurst() throws Exception {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        byte[] content = MediaClipboardTestSupport.randomBytes(BURST_CONTENT_BYTES, 1);
+
+        runBurst(content, true); // Warm up both loops and fill the pool
+        runBurst(content, false);
+
+        BurstResult pooled = runBurst(content, true);
+        BurstResult unpooled = runBurst(content, false);
+
+        System.out.println(String.format("Pooled burst: %.1f MB allocated, %d GCs (%d ms)",
+                pooled.allocatedBytes / (1024.0 * 1024.0), pooled.gcCount, pooled.gcMillis));
+        System.out.println(String.format("Unpooled burst: %.1f MB allocated, %d GCs (%d ms)",
+                unpooled.allocatedBytes / (1024.0 * 1024.0), unpooled.gcCount, unpooled.gcMillis));
+        assertTrue(pooled.allocatedBytes < unpooled.allocatedBytes);
+    }
+
+    private static BurstResult runBurst(byte[] content, boolean pooled) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(BURST_THREADS);
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < BURST_THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    long threadId = Thread.currentThread().getId();
+                    long before = threads.getThreadAllocatedBytes(threadId);
+                    for (int i = 0; i < BURST_COPIES_PER_THREAD; i++) {
+                        if (pooled) {
+                            MediaClipboardUtils.copyStream(new ByteArrayInputStream(content), NULL_OUTPUT, null, content.length);
+                        } else {
+                            copyWithNewBuffer(content);
+                        }
+                    }
+                    return threads.getThreadAllocatedBytes(threadId) - before;
+                }));
+            }
+            long allocated = 0;
+            for (Future<Long> result : results) {
+                allocated += result.get();
+            }
+            return new BurstResult(allocated, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The copy loop as it was before pooling: a fresh buffer per copy
+     */
+    private static void copyWithNewBuffer(byte[] content) throws Exception {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(content);
+        byte[] buffer = new byte[MediaClipboardBufferPool.bufferSizeFor(content.length)];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            NULL_OUTPUT.write(buffer, 0, read);
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private static class BurstResult {
+        final long allocatedBytes;
+        final long gcCount;
+        final long gcMillis;
+
+        BurstResult(long allocatedBytes, long gcCount, long gcMillis) {
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.mediaclipboard;
+
+import android.content.ClipData;
+import android.content.ClipDescription;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.net.Uri;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MediaClipboardFormatProviderTest {
+
+    private MockedStatic<Arguments> arguments;
+    private ReactApplicationContext context;
+    private MediaClipboardFormatProvider provider;
+    private File image;
+
+    @Before
+    public void setUp() throws Exception {
+        arguments = MediaClipboardTestSupport.mockArguments();
+        context = MediaClipboardTestSupport.createContext();
+        provider = Robolectric.setupContentProvider(MediaClipboardFormatProvider.class,
+                context.getPackageName() + MediaClipboardFormatProvider.AUTHORITY_SUFFIX);
+        image = MediaClipboardTestSupport.writeFile(new File(context.getFilesDir(), "formats"), "photo.png", createPng());
+    }
+
+    @After
+    public void tearDown() {
+        arguments.close();
+    }
+
+    @Test
+    public void streamTypesListSourceAndEncodableAlternates() {
+        Uri uri = MediaClipboardFormatProvider.getUri(context, image, "image/png", Arrays.asList("image/jpeg", "image/webp"));
+        assertNotNull(uri);
+
+        assertEquals("image/png", provider.getType(uri));
+        assertArrayEquals(new String[]{"image/png", "image/jpeg", "image/webp"}, provider.getStreamTypes(uri, "*/*"));
+        assertArrayEquals(new String[]{"image/jpeg"}, provider.getStreamTypes(uri, "image/jpeg"));
+        assertNull(provider.getStreamTypes(uri, "video/*"));
+    }
+
+    @Test
+    public void alternatesAreConvertedOnceAndCached() throws Exception {
+        Uri uri = MediaClipboardFormatProvider.getUri(context, image, "image/png", Collections.singletonList("image/jpeg"));
+        long conversions = (long) MediaClipboardFormats.shared().toMap().getDouble("conversions");
+
+        try (AssetFileDescriptor first = provider.openTypedAssetFile(uri, "image/jpeg", null)) {
+            assertTrue(first.getLength() > 0);
+        }
+        try (AssetFileDescriptor second = provider.openTypedAssetFile(uri, "image/jpeg", null)) {
+            assertTrue(second.getLength() > 0);
+        }
+
+        ReadableMap metrics = MediaClipboardFormats.shared().toMap();
+        assertEquals(conversions + 1, (long) metrics.getDouble("conversions"));
+        assertTrue(metrics.getDouble("hits") >= 1);
+        File converted = MediaClipboardFormats.shared().getConvertedFile(image, "image/jpeg", MediaClipboardFormats.getCacheDir(context));
+        assertTrue(converted.exists());
+    }
+
+    @Test
+    public void conversionsCountTowardsTheStorageQuota() throws Exception {
+        MediaClipboardStorage storage = new MediaClipboardStorage();
+        MediaClipboardFormats.shared().setStorage(storage);
+        try {
+            Uri uri = MediaClipboardFormatProvider.getUri(context, image, "image/png", Collections.singletonList("image/jpeg"));
+            try (AssetFileDescriptor converted = provider.openTypedAssetFile(uri, "image/jpeg", null)) {
+                assertEquals(converted.getLength(), storage.getStagedBytes());
+            }
+
+            // No room left for a second conversion
+            storage.setQuotaBytes(storage.getStagedBytes());
+            File other = MediaClipboardTestSupport.writeFile(image.getParentFile(), "other.png", createPng());
+            Uri otherUri = MediaClipboardFormatProvider.getUri(context, other, "image/png", Collections.singletonList("image/jpeg"));
+            try {
+                provider.openTypedAssetFile(otherUri, "image/jpeg", null);
+                fail("Conversion exceeded the storage quota");
+            } catch (FileNotFoundException expected) {
+                // Paste targets fall back to the source format
+            }
+            assertFalse(MediaClipboardFormats.shared().getConvertedFile(other, "image/jpeg", MediaClipboardFormats.getCacheDir(context)).exists());
+            assertEquals(2.0, storage.toMap().getDouble("conversions"), 0); // Refused ones are accounted too, as copies are
+            assertEquals(1.0, storage.toMap().getDouble("refusedCopies"), 0);
+        } finally {
+            MediaClipboardFormats.shared().setStorage(new MediaClipboardStorage());
+        }
+    }
+
+    @Test
+    public void sourceTypeIsServedWithoutConversion() throws Exception {
+        Uri uri = MediaClipboardFormatProvider.getUri(context, image, "image/png", Collections.singletonList("image/jpeg"));
+
+        try (AssetFileDescriptor original = provider.openTypedAssetFile(uri, "image/*", null)) {
+            assertEquals(image.length(), original.getLength());
+        }
+    }
+
+    @Test
+    public void unofferedFormatIsNotFound() throws Exception {
+        Uri uri = MediaClipboardFormatProvider.getUri(context, image, "image/png", Collections.singletonList("image/jpeg"));
+        try {
+            provider.openTypedAssetFile(uri, "image/webp", null);
+            fail("WebP was not offered");
+        } catch (FileNotFoundException expected) {
+            // Only listed alternates are converted
+        }
+    }
+
+    @Test
+    public void pathsOutsideTheRootsAreRefused() throws Exception {
+        assertNull(MediaClipboardFormatProvider.getUri(context, new File("/system/etc/hosts"), "text/plain", Collections.<String>emptyList()));
+
+        Uri escaping = Uri.parse("content://" + context.getPackageName() + MediaClipboardFormatProvider.AUTHORITY_SUFFIX + "/files/..%2F..%2Fsecret.png");
+        try {
+            provider.openFile(escaping, "r");
+            fail("Path traversal was served");
+        } catch (SecurityException | FileNotFoundException expected) {
+            // Refused either way
+        }
+        try {
+            provider.openFile(MediaClipboardFormatProvider.getUri(context, image, "image/png", Collections.<String>emptyList()), "w");
+            fail("Write access was granted");
+        } catch (FileNotFoundException expected) {
+            // Read-only
+        }
+    }
+
+    @Test
+    public void copyImage_advertisesAlternatesInClipDescription() throws Exception {
+        MediaClipboardModule module = new MediaClipboardModule(context);
+        try {
+            String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(createPng());
+            JavaOnlyMap options = JavaOnlyMap.of("alternateFormats", JavaOnlyArray.of("image/jpeg", "image/heic", "image/webp"));
+            FakePromise promise = new FakePromise();
+            module.copyImage(dataUri, options, promise);
+            assertTrue(promise.await().describe(), promise.isResolved());
+
+            ClipData clip = ((ClipboardManager) context.getSystemService(Context.CLIPBOARD_SERVICE)).getPrimaryClip();
+            ClipDescription description = clip.getDescription();
+            assertTrue(description.hasMimeType("image/png"));
+            assertTrue(description.hasMimeType("image/jpeg"));
+            assertTrue(description.hasMimeType("image/webp"));
+            assertFalse(description.hasMimeType("image/heic"));
+            assertEquals(context.getPackageName() + MediaClipboardFormatProvider.AUTHORITY_SUFFIX, clip.getItemAt(0).getUri().getAuthority());
+        } finally {
+            module.invalidate();
+        }
+    }
+
+    private static byte[] createPng() {
+        Bitmap bitmap = Bitmap.createBitmap(64, 48, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.argb(128, 200, 40, 40));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,41 @@
+package com.mediaclipboard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MediaClipboardHtmlTest {
+
+    @Test
+    public void stripsTagsAndCollapsesWhitespace() {
+        assertEquals("Hello world", MediaClipboardHtml.toPlainText("<b>Hello</b>\n   <i>world</i>"));
+    }
+
+    @Test
+    public void blockElementsBecomeLineBreaks() {
+        assertEquals("Title\nFirst\nSecond", MediaClipboardHtml.toPlainText("<h1>Title</h1><p>First</p><div>Second</div>"));
+        assertEquals("a\n\nb", MediaClipboardHtml.toPlainText("a<br><br>b"));
+    }
+
+    @Test
+    public void tableCellsAreSeparated() {
+        assertEquals("a b\nc d", MediaClipboardHtml.toPlainText("<table><tr><td>a</td><td>b</td></tr><tr><td>c</td><td>d</td></tr></table>"));
+    }
+
+    @Test
+    public void skipsScriptStyleAndComments() {
+        assertEquals("visible", MediaClipboardHtml.toPlainText(
+                "<style>p { color: red; }</style><script>var x = '<p>';</script><!-- hidden -->visible"));
+    }
+
+    @Test
+    public void decodesEntities() {
+        assertEquals("Tom & Jerry <3 éé", MediaClipboardHtml.toPlainText("Tom &amp; Jerry &lt;3 &#233;&#xE9;"));
+        assertEquals("&unknown;", MediaClipboardHtml.toPlainText("&unknown;"));
+    }
+
+    @Test
+    public void keepsLiteralLessThan() {
+        assertEquals("1 < 2", MediaClipboardHtml.toPlainText("1 < 2"));
+    }
+}
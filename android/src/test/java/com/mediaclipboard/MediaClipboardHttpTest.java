@@ -0,0 +1,418 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MediaClipboardHttpTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockedStatic<Arguments> arguments;
+    private MockWebServer server;
+    private MediaClipboardHttp http;
+    private File target;
+
+    @Before
+    public void setUp() throws Exception {
+        arguments = MediaClipboardTestSupport.mockArguments();
+        server = new MockWebServer();
+        server.start();
+        http = new MediaClipboardHttp(new OkHttpClient());
+        target = new File(folder.getRoot(), "download.png");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        arguments.close();
+    }
+
+    @Test
+    public void download_writesBodyAndHash() throws Exception {
+        byte[] data = MediaClipboardTestSupport.randomBytes(300 * 1024, 1);
+        server.enqueue(new MockResponse().setBody(new Buffer().write(data)).setHeader("Content-Type", "image/png"));
+
+        MediaClipboardHttp.DownloadResult result = http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+        assertEquals(data.length, result.bytes);
+        assertEquals(MediaClipboardUtils.sha256(data), result.sha256);
+        assertEquals("image/png", result.contentType);
+        assertNoPartialFiles();
+    }
+
+    @Test
+    public void download_followsRedirects() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/final.png"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        MediaClipboardHttp.DownloadResult result = http.download(server.url("/start.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+
+        assertEquals(server.url("/final.png").toString(), result.finalUrl);
+        assertEquals(2, result.bytes);
+    }
+
+    @Test
+    public void download_stopsAfterMaxRedirects() throws Exception {
+        http.configure(MediaClipboardHttp.DEFAULT_CONNECT_TIMEOUT_MS, MediaClipboardHttp.DEFAULT_READ_TIMEOUT_MS, 1);
+        server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/one"));
+        server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/two"));
+
+        try {
+            http.download(server.url("/start.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            assertEquals(302, e.getStatusCode());
+        }
+        assertFalse(target.exists());
+    }
+
+    @Test
+    public void download_failsFastOnHttpError() throws Exception {
+        disableRetries();
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("unavailable"));
+
+        try {
+            http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+        assertFalse(target.exists());
+        assertNoPartialFiles();
+    }
+
+    @Test(expected = MediaClipboardStorage.QuotaExceededException.class)
+    public void download_rejectsDeclaredLengthOverLimit() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(new byte[4096])));
+
+        http.download(server.url("/a.png").toString(), target, 1024);
+    }
+
+    @Test
+    public void download_stopsChunkedBodyAtLimit() throws Exception {
+        server.enqueue(new MockResponse().setChunkedBody(new Buffer().write(new byte[256 * 1024]), 8192));
+
+        try {
+            http.download(server.url("/a.png").toString(), target, 100 * 1024);
+            fail("Expected QuotaExceededException");
+        } catch (MediaClipboardStorage.QuotaExceededException e) {
+            // Expected
+        }
+        assertFalse(target.exists());
+        assertNoPartialFiles();
+    }
+
+    @Test
+    public void download_truncatedBodyLeavesNoFile() throws Exception {
+        disableRetries();
+        server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(new byte[512 * 1024]))
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+
+        try {
+            http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            // Expected
+        }
+        assertFalse(target.exists());
+        assertNoPartialFiles();
+    }
+
+    @Test(expected = MediaClipboardHttp.DownloadException.class)
+    public void download_rejectsInvalidUrl() throws Exception {
+        http.download("http://", target, MediaClipboardStorage.UNLIMITED);
+    }
+
+    @Test
+    public void download_retriesTransientFailuresThenSucceeds() throws Exception {
+        FaultInjector faults = new FaultInjector(
+                new MockResponse().setResponseCode(503),
+                new MockResponse().setResponseCode(429),
+                new MockResponse().setBody("ok"));
+        server.setDispatcher(faults);
+
+        MediaClipboardHttp.DownloadResult result = http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+
+        assertEquals(2, result.bytes);
+        assertEquals(3, server.getRequestCount());
+        ReadableMap host = getHostMetrics();
+        assertEquals(2, host.getInt("retries"));
+        assertEquals("closed", host.getString("state"));
+        assertNoPartialFiles();
+    }
+
+    @Test
+    public void download_doesNotRetryClientErrors() throws Exception {
+        server.setDispatcher(new FaultInjector(new MockResponse().setResponseCode(404)));
+
+        try {
+            http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, getHostMetrics().getInt("failures"));
+    }
+
+    @Test
+    public void download_doesNotRetryTimeouts() throws Exception {
+        http.configure(1000, 200, MediaClipboardHttp.DEFAULT_MAX_REDIRECTS);
+        server.setDispatcher(new FaultInjector(new MockResponse().setBody("late").setHeadersDelay(2, TimeUnit.SECONDS)));
+
+        try {
+            http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            assertFalse(e.isRetryable());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, getHostMetrics().getInt("failures"));
+    }
+
+    @Test
+    public void circuitOpensAfterRepeatedFailuresAndRecoversAfterTrial() throws Exception {
+        http.configureResilience(0, MediaClipboardHosts.DEFAULT_MAX_CONCURRENT_PER_HOST, 3, 300);
+        FaultInjector faults = new FaultInjector(new MockResponse().setResponseCode(500));
+        server.setDispatcher(faults);
+
+        for (int i = 0; i < 3; i++) {
+            assertDownloadFails();
+        }
+        assertEquals("open", getHostMetrics().getString("state"));
+
+        // Open: fails without touching the network
+        long started = System.nanoTime();
+        assertDownloadFails();
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, getHostMetrics().getInt("rejected"));
+
+        // A failed trial opens it again
+        Thread.sleep(350);
+        assertEquals("halfOpen", getHostMetrics().getString("state"));
+        assertDownloadFails();
+        assertEquals(4, server.getRequestCount());
+        assertEquals("open", getHostMetrics().getString("state"));
+
+        // A successful trial closes it
+        Thread.sleep(350);
+        faults.setResponses(new MockResponse().setBody("ok"));
+        http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+        ReadableMap host = getHostMetrics();
+        assertEquals("closed", host.getString("state"));
+        assertEquals(0, host.getInt("consecutiveFailures"));
+    }
+
+    @Test
+    public void concurrentDownloadsPerHostAreBounded() throws Exception {
+        http.configureResilience(0, 2, MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+        FaultInjector faults = new FaultInjector(new MockResponse().setBody("ok").setHeadersDelay(100, TimeUnit.MILLISECONDS));
+        server.setDispatcher(faults);
+
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            List<Future<MediaClipboardHttp.DownloadResult>> results = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                File file = new File(folder.getRoot(), "parallel_" + i + ".png");
+                results.add(executor.submit(() -> http.download(server.url("/p.png").toString(), file, MediaClipboardStorage.UNLIMITED)));
+            }
+            for (Future<MediaClipboardHttp.DownloadResult> result : results) {
+                assertEquals(2, result.get(10, TimeUnit.SECONDS).bytes);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue("Peak concurrency " + faults.getPeakConcurrency(), faults.getPeakConcurrency() <= 2);
+        assertEquals(12, getHostMetrics().getInt("successes"));
+    }
+
+    @Test
+    public void downloadsWaitingTooLongForASlotFailFast() throws Exception {
+        http.configure(200, MediaClipboardHttp.DEFAULT_READ_TIMEOUT_MS, MediaClipboardHttp.DEFAULT_MAX_REDIRECTS);
+        http.configureResilience(0, 1, MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+        server.setDispatcher(new FaultInjector(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MediaClipboardHttp.DownloadResult> slow = executor.submit(() ->
+                    http.download(server.url("/slow.png").toString(), new File(folder.getRoot(), "slow.png"), MediaClipboardStorage.UNLIMITED));
+            while (getHostMetrics() == null || getHostMetrics().getInt("inFlight") == 0) {
+                Thread.sleep(10);
+            }
+
+            try {
+                http.download(server.url("/queued.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+                fail("Expected DownloadException");
+            } catch (MediaClipboardHttp.DownloadException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Too many concurrent downloads"));
+            }
+            assertEquals(4, slow.get(5, TimeUnit.SECONDS).bytes);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, getHostMetrics().getInt("rejected"));
+    }
+
+    @Test
+    public void reconfiguringKeepsHostsWithDownloadsInFlight() throws Exception {
+        http.configure(200, MediaClipboardHttp.DEFAULT_READ_TIMEOUT_MS, MediaClipboardHttp.DEFAULT_MAX_REDIRECTS);
+        http.configureResilience(0, 2, MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+        server.setDispatcher(new FaultInjector(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MediaClipboardHttp.DownloadResult> slow = executor.submit(() ->
+                    http.download(server.url("/slow.png").toString(), new File(folder.getRoot(), "slow.png"), MediaClipboardStorage.UNLIMITED));
+            while (getHostMetrics() == null || getHostMetrics().getInt("inFlight") == 0) {
+                Thread.sleep(10);
+            }
+
+            // Lowering the limit applies to the tracked host, which already has its one slot in use
+            http.configureResilience(0, 1, MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+            assertEquals(1, getHostMetrics().getInt("maxConcurrent"));
+            assertEquals(1, getHostMetrics().getInt("inFlight"));
+            try {
+                http.download(server.url("/queued.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+                fail("Expected DownloadException");
+            } catch (MediaClipboardHttp.DownloadException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Too many concurrent downloads"));
+            }
+            assertEquals(4, slow.get(5, TimeUnit.SECONDS).bytes);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, getHostMetrics().getInt("inFlight"));
+    }
+
+    @Test
+    public void hostsWithActiveLeasesAreNotEvicted() throws Exception {
+        MediaClipboardHosts hosts = new MediaClipboardHosts();
+        hosts.configure(1, MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+        MediaClipboardHosts.Lease busy = hosts.acquire("busy.example", 0);
+
+        // Enough other hosts to push the busy one out of the LRU if it were idle
+        for (int i = 0; i < 100; i++) {
+            hosts.acquire("host" + i + ".example", 0).close();
+        }
+
+        try {
+            hosts.acquire("busy.example", 0);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Too many concurrent downloads"));
+        }
+        busy.close();
+        hosts.acquire("busy.example", 0).close();
+    }
+
+    private void disableRetries() {
+        http.configureResilience(0, MediaClipboardHosts.DEFAULT_MAX_CONCURRENT_PER_HOST,
+                MediaClipboardHosts.DEFAULT_FAILURE_THRESHOLD, MediaClipboardHosts.DEFAULT_OPEN_MS);
+    }
+
+    private void assertDownloadFails() throws Exception {
+        try {
+            http.download(server.url("/a.png").toString(), target, MediaClipboardStorage.UNLIMITED);
+            fail("Expected DownloadException");
+        } catch (MediaClipboardHttp.DownloadException e) {
+            // Expected
+        }
+    }
+
+    private ReadableMap getHostMetrics() {
+        ReadableMap hosts = http.getHosts().toMap();
+        String key = server.getHostName() + ":" + server.getPort();
+        return hosts.hasKey(key) ? hosts.getMap(key) : null;
+    }
+
+    /**
+     * Serves scripted responses in order, repeating the last one, and records the
+     * peak number of requests handled at once
+     */
+    private static class FaultInjector extends Dispatcher {
+        private final AtomicInteger index = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private volatile MockResponse[] responses;
+
+        FaultInjector(MockResponse... responses) {
+            this.responses = responses;
+        }
+
+        void setResponses(MockResponse... responses) {
+            index.set(0);
+            this.responses = responses;
+        }
+
+        int getPeakConcurrency() {
+            return peak.get();
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            int current = inFlight.incrementAndGet();
+            peak.accumulateAndGet(current, Math::max);
+            try {
+                MockResponse[] script = responses;
+                MockResponse response = script[Math.min(index.getAndIncrement(), script.length - 1)];
+                // Hold the slot for the headers delay so overlapping requests are visible
+                long delayMs = response.getHeadersDelay(TimeUnit.MILLISECONDS);
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+                // Serving a response consumes its body, so every request gets a copy
+                MockResponse copy = response.clone().setHeadersDelay(0, TimeUnit.MILLISECONDS);
+                Buffer body = response.getBody();
+                return body != null ? copy.setBody(body.clone()) : copy;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void assertNoPartialFiles() {
+        for (File file : folder.getRoot().listFiles()) {
+            assertFalse("Partial file left behind: " + file.getName(), MediaClipboardUtils.isPartialFile(file));
+        }
+    }
+}
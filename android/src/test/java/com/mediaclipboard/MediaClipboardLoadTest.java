@@ -0,0 +1,189 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Hundreds of concurrent copies through every staging path, checking that each one
+ * settles exactly once and that no worker threads, temporary files or partial files
+ * outlive the module.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MediaClipboardLoadTest {
+
+    private static final int COPIES = 400;
+    private static final int SOURCE_FILES = 8;
+    private static final long SETTLE_TIMEOUT_MS = 120000;
+    private static final long THREAD_EXIT_TIMEOUT_MS = 10000;
+
+    private MockedStatic<Arguments> arguments;
+    private ReactApplicationContext context;
+    private MockWebServer server;
+    private MediaClipboardModule module;
+
+    @Before
+    public void setUp() throws Exception {
+        arguments = MediaClipboardTestSupport.mockArguments();
+        context = MediaClipboardTestSupport.createContext();
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int size = 16 * 1024 + request.getPath().length() * 1024;
+                return new MockResponse()
+                        .setHeader("Content-Type", "image/png")
+                        .setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(size, size)));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (module != null) {
+            module.invalidate();
+        }
+        server.shutdown();
+        arguments.close();
+    }
+
+    @Test
+    public void concurrentCopies_settleOnceAndLeaveNothingBehind() throws Exception {
+        Set<Thread> threadsBefore = new HashSet<>(Thread.getAllStackTraces().keySet());
+        module = new MediaClipboardModule(context);
+
+        List<File> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCE_FILES; i++) {
+            sources.add(MediaClipboardTestSupport.writeFile(new File(context.getFilesDir(), "load"), "source_" + i + ".png",
+                    MediaClipboardTestSupport.randomBytes(32 * 1024 * (i + 1), i)));
+        }
+
+        List<FakePromise> promises = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            FakePromise promise = new FakePromise();
+            promises.add(promise);
+            switch (i % 4) {
+                case 0:
+                    module.copyImage(sources.get(i % SOURCE_FILES).getAbsolutePath(), null, promise);
+                    break;
+                case 1:
+                    byte[] data = MediaClipboardTestSupport.randomBytes(4096, i);
+                    module.copyImage("data:image/png;base64," + Base64.getEncoder().encodeToString(data), null, promise);
+                    break;
+                case 2:
+                    module.copyImage(server.url("/media/" + (i % 16) + ".png").toString(), null, promise);
+                    break;
+                default:
+                    module.copyFile(sources.get(i % SOURCE_FILES).getAbsolutePath(), "application/octet-stream", null, promise);
+                    break;
+            }
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        for (FakePromise promise : promises) {
+            promise.await(SETTLE_TIMEOUT_MS);
+            assertTrue(promise.describe(), promise.isResolved());
+            assertEquals("Promise settled more than once", 1, promise.getSettleCount());
+            latencies.add(promise.getLatencyNanos());
+        }
+        System.out.println(String.format("%d concurrent copies: p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                COPIES,
+                MediaClipboardTestSupport.percentileMillis(latencies, 50),
+                MediaClipboardTestSupport.percentileMillis(latencies, 99),
+                MediaClipboardTestSupport.percentileMillis(latencies, 100)));
+
+        module.invalidate();
+        module = null;
+
+        assertNoStagingFilesLeft(context);
+        assertNoWorkerThreadsLeft(threadsBefore);
+    }
+
+    @Test
+    public void invalidateWhileCopiesAreInFlight() throws Exception {
+        module = new MediaClipboardModule(context);
+
+        List<FakePromise> promises = new ArrayList<>();
+        for (int i = 0; i < COPIES / 2; i++) {
+            FakePromise promise = new FakePromise();
+            promises.add(promise);
+            module.copyImage(server.url("/inflight/" + i + ".png").toString(), null, promise);
+        }
+
+        // Downloads keep adding to the temporary file list while it is being cleaned up
+        module.invalidate();
+        module = null;
+
+        for (FakePromise promise : promises) {
+            promise.await(SETTLE_TIMEOUT_MS);
+            assertEquals("Promise settled more than once", 1, promise.getSettleCount());
+        }
+        assertNoStagingFilesLeft(context);
+    }
+
+    /**
+     * Wait for the final cleanup after invalidate, then check no staged or partial files remain
+     */
+    private static void assertNoStagingFilesLeft(ReactApplicationContext context) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + THREAD_EXIT_TIMEOUT_MS;
+        for (File dir : new File[]{context.getCacheDir(), context.getExternalCacheDir()}) {
+            if (dir == null) {
+                continue;
+            }
+            while (!MediaClipboardTestSupport.listFiles(dir, "clipboard_").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals("Leaked staging files in " + dir, Collections.emptyList(), MediaClipboardTestSupport.listFiles(dir, "clipboard_"));
+        }
+    }
+
+    /**
+     * Wait for the copy executor and prefetch threads started by the module to exit
+     */
+    private static void assertNoWorkerThreadsLeft(Set<Thread> threadsBefore) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + THREAD_EXIT_TIMEOUT_MS;
+        List<String> leaked = new ArrayList<>();
+        do {
+            leaked.clear();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                String name = thread.getName();
+                if (thread.isAlive() && !threadsBefore.contains(thread)
+                        && (name.startsWith("pool-") || name.startsWith("MediaClipboard"))) {
+                    leaked.add(name);
+                }
+            }
+            if (leaked.isEmpty()) {
+                return;
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < deadline);
+        fail("Worker threads still alive after invalidate: " + leaked);
+    }
+}
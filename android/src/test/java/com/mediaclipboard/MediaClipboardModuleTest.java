@@ -0,0 +1,718 @@
+package com.mediaclipboard;
+
+import android.content.ClipData;
+import android.content.ClipDescription;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.webkit.MimeTypeMap;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowMediaMetadataRetriever;
+import org.robolectric.shadows.util.DataSource;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MediaClipboardModuleTest {
+
+    private MockedStatic<Arguments> arguments;
+    private ReactApplicationContext context;
+    private ClipboardManager clipboardManager;
+    private MediaClipboardModule module;
+    private MockWebServer server;
+    private File mediaDir;
+
+    @Before
+    public void setUp() throws Exception {
+        arguments = MediaClipboardTestSupport.mockArguments();
+        context = MediaClipboardTestSupport.createContext();
+        clipboardManager = (ClipboardManager) context.getSystemService(Context.CLIPBOARD_SERVICE);
+        module = new MediaClipboardModule(context);
+        server = new MockWebServer();
+        server.start();
+        mediaDir = new File(context.getFilesDir(), "media");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        module.invalidate();
+        server.shutdown();
+        arguments.close();
+    }
+
+    @Test
+    public void copyText_setsPlainTextClip() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.copyText("hello", promise);
+
+        assertResolved(promise.await());
+        assertEquals("hello", clipboardManager.getPrimaryClip().getItemAt(0).getText().toString());
+    }
+
+    @Test
+    public void copyHtml_smallDocumentIsInlineWithPlainTextFallback() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.copyHtml("<p>Hello <b>world</b></p>", null, promise);
+        assertResolved(promise.await());
+
+        ClipData.Item item = clipboardManager.getPrimaryClip().getItemAt(0);
+        assertEquals("<p>Hello <b>world</b></p>", item.getHtmlText());
+        assertEquals("Hello world", item.getText().toString());
+
+        FakePromise content = new FakePromise();
+        module.getContent(content);
+        ReadableMap result = (ReadableMap) content.await().getValue();
+        assertEquals("text", result.getString("type"));
+        assertEquals(ClipDescription.MIMETYPE_TEXT_HTML, result.getString("mimeType"));
+        assertEquals("Hello world", result.getString("data"));
+        assertEquals("<p>Hello <b>world</b></p>", result.getString("html"));
+    }
+
+    @Test
+    public void copyHtml_inlinePayloadIsCountedInUtf8Bytes() throws Exception {
+        String html = "<p>h\u00e9llo \u4e16\u754c</p>";
+        FakePromise promise = new FakePromise();
+        module.copyHtml(html, null, promise);
+        assertResolved(promise.await());
+
+        assertEquals("inline", getLastStagingPath(1));
+        ReadableMap copy = getMetrics().getMap("storage").getArray("recentCopies").getMap(0);
+        assertEquals(html.getBytes(StandardCharsets.UTF_8).length, copy.getDouble("payloadBytes"), 0);
+    }
+
+    @Test
+    public void copyHtml_largeDocumentIsStagedAsUri() throws Exception {
+        StringBuilder html = new StringBuilder();
+        while (html.length() < 200 * 1024) {
+            html.append("<p>paragraph</p>");
+        }
+
+        FakePromise promise = new FakePromise();
+        module.copyHtml(html.toString(), "summary", promise);
+        assertResolved(promise.await());
+
+        ClipData clip = clipboardManager.getPrimaryClip();
+        assertTrue(clip.getDescription().hasMimeType(ClipDescription.MIMETYPE_TEXT_HTML));
+        assertNotNull(clip.getItemAt(0).getUri());
+        assertNull(clip.getItemAt(0).getHtmlText());
+        assertEquals(1, MediaClipboardTestSupport.listFiles(context.getCacheDir(), "clipboard_html_").size());
+    }
+
+    @Test
+    public void copyImage_localFile() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "photo.png", MediaClipboardTestSupport.randomBytes(4096, 1));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), null, promise);
+
+        assertResolved(promise.await());
+        assertNotNull(clipboardManager.getPrimaryClip().getItemAt(0).getUri());
+    }
+
+    @Test
+    public void copyImage_base64() throws Exception {
+        byte[] data = MediaClipboardTestSupport.randomBytes(2048, 2);
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(data);
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(dataUri, null, promise);
+
+        assertResolved(promise.await());
+        assertNotNull(clipboardManager.getPrimaryClip().getItemAt(0).getUri());
+    }
+
+    @Test
+    public void copyImage_base64IsHashedWhileStaged() throws Exception {
+        byte[] data = MediaClipboardTestSupport.randomBytes(2048, 23);
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(data);
+
+        FakePromise matching = new FakePromise();
+        module.copyImage(dataUri, JavaOnlyMap.of("expectedHash", MediaClipboardUtils.sha256(data)), matching);
+        assertResolved(matching.await());
+
+        FakePromise mismatched = new FakePromise();
+        module.copyImage(dataUri, JavaOnlyMap.of("expectedHash", MediaClipboardUtils.sha256(new byte[]{1})), mismatched);
+        assertRejected(mismatched.await(), "INTEGRITY_ERROR");
+        assertEquals(1, MediaClipboardTestSupport.listFiles(context.getCacheDir(), "clipboard_image").size());
+    }
+
+    @Test
+    public void copyImage_invalidBase64IsRejected() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.copyImage("data:image/png,not-base64", null, promise);
+
+        assertRejected(promise.await(), "INVALID_BASE64");
+    }
+
+    @Test
+    public void copyImage_remoteUrlIsDownloaded() throws Exception {
+        byte[] data = MediaClipboardTestSupport.randomBytes(64 * 1024, 3);
+        server.enqueue(new MockResponse().setBody(new Buffer().write(data)).setHeader("Content-Type", "image/png"));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(server.url("/photo.png").toString(), null, promise);
+
+        assertResolved(promise.await());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, MediaClipboardTestSupport.listFiles(context.getCacheDir(), "clipboard_").stream()
+                .filter(name -> name.endsWith(MediaClipboardUtils.PARTIAL_SUFFIX)).count());
+    }
+
+    @Test
+    public void copyImage_httpErrorIsDownloadError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(server.url("/missing.png").toString(), null, promise);
+
+        assertRejected(promise.await(), "DOWNLOAD_ERROR");
+    }
+
+    @Test
+    public void copyImage_matchingHashAndSizeAreAccepted() throws Exception {
+        byte[] data = MediaClipboardTestSupport.randomBytes(8192, 4);
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "verified.png", data);
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), JavaOnlyMap.of(
+                "expectedHash", "SHA256:" + MediaClipboardUtils.sha256(data).toUpperCase(),
+                "expectedSize", (double) data.length), promise);
+
+        assertResolved(promise.await());
+    }
+
+    @Test
+    public void copyImage_hashMismatchIsIntegrityErrorAndKeepsClipboard() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "tampered.png", MediaClipboardTestSupport.randomBytes(8192, 5));
+        clipboardManager.setPrimaryClip(ClipData.newPlainText("", "before"));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), JavaOnlyMap.of("expectedHash", MediaClipboardUtils.sha256(new byte[]{1})), promise);
+
+        assertRejected(promise.await(), "INTEGRITY_ERROR");
+        assertEquals("before", clipboardManager.getPrimaryClip().getItemAt(0).getText().toString());
+    }
+
+    @Test
+    public void copyImage_sizeMismatchOnDownloadIsIntegrityError() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(1000, 6))));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(server.url("/short.png").toString(), JavaOnlyMap.of("expectedSize", 1001.0), promise);
+
+        assertRejected(promise.await(), "INTEGRITY_ERROR");
+    }
+
+    @Test
+    public void copyImage_downloadOverQuotaIsRejected() throws Exception {
+        FakePromise configured = new FakePromise();
+        module.configure(JavaOnlyMap.of("maxCopyBytes", 1024.0), configured);
+        assertResolved(configured.await());
+        server.enqueue(new MockResponse().setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(64 * 1024, 7))));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(server.url("/large.png").toString(), null, promise);
+
+        assertRejected(promise.await(), "QUOTA_EXCEEDED");
+    }
+
+    @Test
+    public void copyImage_missingFileIsRejected() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.copyImage(new File(mediaDir, "nope.png").getAbsolutePath(), null, promise);
+
+        assertRejected(promise.await(), "FILE_NOT_FOUND");
+    }
+
+    @Test
+    public void copyImage_relativePathIsRejected() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.copyImage("../photo.png", null, promise);
+
+        assertRejected(promise.await(), "RELATIVE_PATH_ERROR");
+    }
+
+    @Test
+    public void copyOtherMediaTypes() throws Exception {
+        File video = MediaClipboardTestSupport.writeFile(mediaDir, "clip.mp4", MediaClipboardTestSupport.randomBytes(4096, 8));
+        File pdf = MediaClipboardTestSupport.writeFile(mediaDir, "doc.pdf", MediaClipboardTestSupport.randomBytes(4096, 9));
+        File audio = MediaClipboardTestSupport.writeFile(mediaDir, "song.mp3", MediaClipboardTestSupport.randomBytes(4096, 10));
+        File file = MediaClipboardTestSupport.writeFile(mediaDir, "data.bin", MediaClipboardTestSupport.randomBytes(4096, 11));
+
+        FakePromise videoPromise = new FakePromise();
+        module.copyVideo(video.getAbsolutePath(), JavaOnlyMap.of("includePreview", true), videoPromise);
+        assertResolved(videoPromise.await());
+
+        FakePromise pdfPromise = new FakePromise();
+        module.copyPDF(pdf.getAbsolutePath(), null, pdfPromise);
+        assertResolved(pdfPromise.await());
+
+        FakePromise audioPromise = new FakePromise();
+        module.copyAudio(audio.getAbsolutePath(), null, audioPromise);
+        assertResolved(audioPromise.await());
+
+        FakePromise filePromise = new FakePromise();
+        module.copyFile(file.getAbsolutePath(), "application/octet-stream", null, filePromise);
+        assertResolved(filePromise.await());
+
+        FakePromise largePromise = new FakePromise();
+        module.copyLargeFile(file.getAbsolutePath(), "application/octet-stream", null, largePromise);
+        assertResolved(largePromise.await());
+    }
+
+    @Test
+    public void copyVideo_includePreviewAddsPosterFrameAndReusesIt() throws Exception {
+        File video = MediaClipboardTestSupport.writeFile(mediaDir, "poster.mp4", MediaClipboardTestSupport.randomBytes(4096, 21));
+        Bitmap frame = Bitmap.createBitmap(640, 360, Bitmap.Config.ARGB_8888);
+        frame.eraseColor(Color.BLUE);
+        DataSource source = DataSource.toDataSource(video.getAbsolutePath());
+        ShadowMediaMetadataRetriever.addMetadata(source, MediaMetadataRetriever.METADATA_KEY_DURATION, "4000");
+        ShadowMediaMetadataRetriever.addScaledFrame(source, 1000000, 512, 512, frame);
+
+        FakePromise first = new FakePromise();
+        module.copyVideo(video.getAbsolutePath(), JavaOnlyMap.of("includePreview", true), first);
+        assertResolved(first.await());
+
+        ClipData clip = clipboardManager.getPrimaryClip();
+        assertEquals(2, clip.getItemCount());
+        assertTrue(clip.getDescription().hasMimeType("image/jpeg"));
+        assertNotNull(clip.getItemAt(1).getUri());
+        ReadableMap previews = getMetrics().getMap("previews");
+        assertEquals(1, previews.getInt("generated"));
+        int hits = previews.getInt("hits");
+
+        FakePromise second = new FakePromise();
+        module.copyVideo(video.getAbsolutePath(), JavaOnlyMap.of("includePreview", true), second);
+        assertResolved(second.await());
+
+        assertEquals(2, clipboardManager.getPrimaryClip().getItemCount());
+        previews = getMetrics().getMap("previews");
+        assertEquals(hits + 1, previews.getInt("hits"));
+        assertEquals(1, previews.getInt("generated"));
+    }
+
+    @Test
+    public void copyAudio_withoutCoverArtHasNoPreview() throws Exception {
+        File audio = MediaClipboardTestSupport.writeFile(mediaDir, "plain.mp3", MediaClipboardTestSupport.randomBytes(4096, 22));
+        ShadowMediaMetadataRetriever.addMetadata(DataSource.toDataSource(audio.getAbsolutePath()), MediaMetadataRetriever.METADATA_KEY_DURATION, "4000");
+
+        FakePromise promise = new FakePromise();
+        module.copyAudio(audio.getAbsolutePath(), JavaOnlyMap.of("includePreview", true), promise);
+        assertResolved(promise.await());
+
+        assertEquals(1, clipboardManager.getPrimaryClip().getItemCount());
+        assertEquals(1, getMetrics().getMap("previews").getInt("missing"));
+    }
+
+    @Test
+    public void hasContentAndClear() throws Exception {
+        FakePromise copied = new FakePromise();
+        module.copyText("something", copied);
+        assertResolved(copied.await());
+
+        FakePromise hasContent = new FakePromise();
+        module.hasContent(hasContent);
+        assertEquals(true, hasContent.await().getValue());
+
+        FakePromise cleared = new FakePromise();
+        module.clear(cleared);
+        assertResolved(cleared.await());
+
+        FakePromise empty = new FakePromise();
+        module.hasContent(empty);
+        assertEquals(false, empty.await().getValue());
+    }
+
+    @Test
+    public void configure_rejectsNegativeTimeouts() throws Exception {
+        FakePromise promise = new FakePromise();
+        module.configure(JavaOnlyMap.of("connectTimeout", -1), promise);
+
+        assertRejected(promise.await(), "INVALID_CONFIG");
+    }
+
+    @Test
+    public void prefetchedImageIsServedFromCache() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(16 * 1024, 12))));
+        String url = server.url("/prefetched.png").toString();
+
+        FakePromise prefetched = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(url), null, prefetched);
+        ReadableArray handles = (ReadableArray) prefetched.await().getValue();
+        assertEquals(1, handles.size());
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(url, null, promise);
+        assertResolved(promise.await());
+        assertEquals(1, server.getRequestCount());
+
+        ReadableMap prefetch = getMetrics().getMap("prefetch");
+        assertEquals(1.0, prefetch.getDouble("hits"), 0);
+    }
+
+    @Test
+    public void copyImage_prefetchedLargeImageSetsStagedUriDirectly() throws Exception {
+        shadowOf(MimeTypeMap.getSingleton()).addExtensionMimeTypMapping("png", "image/png");
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "large.png", MediaClipboardTestSupport.randomBytes(512 * 1024, 20));
+
+        FakePromise prefetched = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(image.getAbsolutePath()), null, prefetched);
+        assertResolved(prefetched.await());
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), null, promise);
+        assertResolved(promise.await());
+
+        // Over 256 KB, so prefetch already made the MediaStore copy and the copy only sets the clip
+        assertEquals("prefetched", getLastStagingPath(1));
+        ReadableMap storage = getMetrics().getMap("storage");
+        assertEquals(0.0, storage.getArray("recentCopies").getMap(0).getDouble("bytesWritten"), 0);
+        Uri clipUri = clipboardManager.getPrimaryClip().getItemAt(0).getUri();
+        assertEquals(MediaStore.AUTHORITY, clipUri.getAuthority());
+        assertEquals(1.0, getMetrics().getMap("prefetch").getDouble("hits"), 0);
+    }
+
+    @Test
+    public void copyWithoutPrefetchIsNotAMiss() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "direct.png", MediaClipboardTestSupport.randomBytes(4096, 16));
+
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), null, promise);
+        assertResolved(promise.await());
+
+        ReadableMap prefetch = getMetrics().getMap("prefetch");
+        assertEquals(0.0, prefetch.getDouble("hits"), 0);
+        assertEquals(0.0, prefetch.getDouble("misses"), 0);
+    }
+
+    @Test
+    public void prefetchedImageFailingVerificationKeepsEarlierCopy() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(16 * 1024, 14))));
+        String url = server.url("/shared.png").toString();
+
+        FakePromise prefetched = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(url), null, prefetched);
+        assertResolved(prefetched.await());
+
+        FakePromise first = new FakePromise();
+        module.copyImage(url, null, first);
+        assertResolved(first.await());
+        getLastStagingPath(1);
+        List<String> staged = MediaClipboardTestSupport.listFiles(context.getCacheDir(), "");
+
+        FakePromise mismatched = new FakePromise();
+        module.copyImage(url, JavaOnlyMap.of("expectedHash", MediaClipboardUtils.sha256(new byte[]{1})), mismatched);
+        assertRejected(mismatched.await(), "INTEGRITY_ERROR");
+        getLastStagingPath(2);
+
+        // The first copy may still be on the clipboard, so its staging stays
+        for (String name : staged) {
+            assertTrue(name + " was deleted", new File(context.getCacheDir(), name).exists());
+        }
+        assertEquals(0, getMetrics().getMap("prefetch").getInt("entries"));
+    }
+
+    @Test
+    public void cancelPrefetch_discardsUnusedEntries() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "later.png", MediaClipboardTestSupport.randomBytes(4096, 13));
+
+        FakePromise prefetched = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(image.getAbsolutePath()), null, prefetched);
+        assertResolved(prefetched.await());
+
+        FakePromise cancelled = new FakePromise();
+        module.cancelPrefetch(null, cancelled);
+        assertResolved(cancelled.await());
+
+        // Cancellation runs on the copy executor after the promise resolves
+        long deadline = System.currentTimeMillis() + 5000;
+        while (getMetrics().getMap("prefetch").getInt("entries") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, getMetrics().getMap("prefetch").getInt("entries"));
+    }
+
+    @Test
+    public void prefetch_omittedLimitsKeepCurrentValues() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "limits.png", MediaClipboardTestSupport.randomBytes(4096, 20));
+
+        FakePromise limited = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(image.getAbsolutePath()), JavaOnlyMap.of("maxEntries", 5, "maxBytes", 1024.0 * 1024), limited);
+        assertResolved(limited.await());
+        FakePromise bytesOnly = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(image.getAbsolutePath()), JavaOnlyMap.of("maxBytes", 2048.0 * 1024), bytesOnly);
+        assertResolved(bytesOnly.await());
+        FakePromise noLimits = new FakePromise();
+        module.prefetch(JavaOnlyArray.of(image.getAbsolutePath()), new JavaOnlyMap(), noLimits);
+        assertResolved(noLimits.await());
+
+        ReadableMap prefetch = getMetrics().getMap("prefetch");
+        assertEquals(5, prefetch.getInt("maxEntries"));
+        assertEquals(2048.0 * 1024, prefetch.getDouble("maxBytes"), 0);
+    }
+
+    @Test
+    public void historyRecordsCopiesWhenEnabled() throws Exception {
+        FakePromise configured = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", true, "historyCapacity", 10), configured);
+        assertResolved(configured.await());
+
+        FakePromise copied = new FakePromise();
+        module.copyText("remember me", copied);
+        assertResolved(copied.await());
+
+        FakePromise page = new FakePromise();
+        module.getHistory(0, 10, page);
+        ReadableArray entries = (ReadableArray) page.await().getValue();
+        assertTrue(entries.size() >= 1);
+        assertEquals("remember me", entries.getMap(0).getString("data"));
+
+        FakePromise cleared = new FakePromise();
+        module.clearHistory(cleared);
+        assertResolved(cleared.await());
+
+        FakePromise emptyPage = new FakePromise();
+        module.getHistory(0, 10, emptyPage);
+        assertEquals(0, ((ReadableArray) emptyPage.await().getValue()).size());
+    }
+
+    @Test
+    public void historyKeepsStoredCapacityWhenReenabledWithoutOne() throws Exception {
+        FakePromise configured = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", true, "historyCapacity", 150), configured);
+        assertResolved(configured.await());
+        for (int i = 0; i < 120; i++) {
+            FakePromise copied = new FakePromise();
+            module.copyText("entry " + i, copied);
+            assertResolved(copied.await());
+        }
+
+        FakePromise disabled = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", false), disabled);
+        assertResolved(disabled.await());
+        FakePromise reenabled = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", true), reenabled);
+        assertResolved(reenabled.await());
+
+        FakePromise page = new FakePromise();
+        module.getHistory(0, 200, page);
+        ReadableArray entries = (ReadableArray) page.await().getValue();
+        assertTrue(entries.size() >= 120);
+        assertEquals("entry 119", entries.getMap(0).getString("data"));
+    }
+
+    @Test
+    public void historySkipsCorruptSlotsAndResizesThroughTempFile() throws Exception {
+        FakePromise configured = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", true, "historyCapacity", 10), configured);
+        assertResolved(configured.await());
+        for (String text : new String[]{"first", "second"}) {
+            FakePromise copied = new FakePromise();
+            module.copyText(text, copied);
+            assertResolved(copied.await());
+        }
+        FakePromise disabled = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", false), disabled);
+        assertResolved(disabled.await());
+
+        // Negative data length in the newest slot (header 32 bytes, slots 1024, length at +12)
+        File historyFile = new File(context.getFilesDir(), "mediaclipboard_history.bin");
+        try (RandomAccessFile file = new RandomAccessFile(historyFile, "rw")) {
+            file.seek(32 + 1024 + 12);
+            file.writeInt(-1);
+        }
+
+        FakePromise resized = new FakePromise();
+        module.configure(JavaOnlyMap.of("historyEnabled", true, "historyCapacity", 20), resized);
+        assertResolved(resized.await());
+        assertFalse(new File(historyFile.getPath() + ".tmp").exists());
+
+        FakePromise page = new FakePromise();
+        module.getHistory(0, 10, page);
+        ReadableArray entries = (ReadableArray) page.await().getValue();
+        // The corrupt slot is skipped; re-enabling recorded the current clip again
+        assertEquals(2, entries.size());
+        assertEquals("second", entries.getMap(0).getString("data"));
+        assertEquals("first", entries.getMap(1).getString("data"));
+    }
+
+    @Test
+    public void getMetrics_reportsEverySection() throws Exception {
+        File image = MediaClipboardTestSupport.writeFile(mediaDir, "metrics.png", MediaClipboardTestSupport.randomBytes(4096, 14));
+        FakePromise promise = new FakePromise();
+        module.copyImage(image.getAbsolutePath(), null, promise);
+        assertResolved(promise.await());
+        assertEquals("fileProvider", getLastStagingPath(1));
+
+        ReadableMap metrics = getMetrics();
+        assertTrue(metrics.getMap("storage").getDouble("copies") >= 1);
+        assertTrue(metrics.hasKey("prefetch"));
+        assertTrue(metrics.hasKey("buffers"));
+        assertTrue(metrics.hasKey("previews"));
+        assertTrue(metrics.hasKey("strategy"));
+    }
+
+    @Test
+    public void copyVideo_stagingRouteFollowsPayloadSize() throws Exception {
+        File small = MediaClipboardTestSupport.writeFile(mediaDir, "small.mp4", MediaClipboardTestSupport.randomBytes(4096, 16));
+        File large = MediaClipboardTestSupport.writeFile(mediaDir, "large.mp4", MediaClipboardTestSupport.randomBytes(2 * 1024 * 1024, 17));
+
+        FakePromise smallPromise = new FakePromise();
+        module.copyVideo(small.getAbsolutePath(), null, smallPromise);
+        assertResolved(smallPromise.await());
+        assertEquals("content", clipboardManager.getPrimaryClip().getItemAt(0).getUri().getScheme());
+        assertEquals("fileProvider", getLastStagingPath(1));
+
+        FakePromise largePromise = new FakePromise();
+        module.copyVideo(large.getAbsolutePath(), null, largePromise);
+        assertResolved(largePromise.await());
+        assertEquals("mediaStore", getLastStagingPath(2));
+
+        ReadableMap strategy = getMetrics().getMap("strategy");
+        assertEquals("mediaStore", strategy.getString("compatibilityRoute"));
+        assertEquals(1, strategy.getMap("choices").getInt("mediaStore"));
+        assertEquals(1, strategy.getMap("choices").getInt("fileProvider"));
+        ReadableMap route = strategy.getArray("routes").getMap(0);
+        assertEquals("video", route.getString("mediaClass"));
+        assertEquals(1, route.getInt("successes"));
+    }
+
+    @Test
+    @Config(sdk = 28)
+    public void copyVideo_externalCacheCopyIsSharedByContentUri() throws Exception {
+        File large = MediaClipboardTestSupport.writeFile(mediaDir, "large.mp4", MediaClipboardTestSupport.randomBytes(2 * 1024 * 1024, 18));
+
+        FakePromise promise = new FakePromise();
+        module.copyVideo(large.getAbsolutePath(), null, promise);
+        assertResolved(promise.await());
+
+        assertEquals("externalCache", getLastStagingPath(1));
+        assertEquals("content", clipboardManager.getPrimaryClip().getItemAt(0).getUri().getScheme());
+        assertEquals(1, MediaClipboardTestSupport.listFiles(context.getExternalCacheDir(), "clipboard_").size());
+    }
+
+    @Test
+    @Config(sdk = 28)
+    public void copyVideo_concurrentExternalCacheCopiesGetTheirOwnFiles() throws Exception {
+        FakePromise[] promises = new FakePromise[4];
+        for (int i = 0; i < promises.length; i++) {
+            File video = MediaClipboardTestSupport.writeFile(mediaDir, "concurrent" + i + ".mp4", MediaClipboardTestSupport.randomBytes(512 * 1024, 30 + i));
+            promises[i] = new FakePromise();
+            module.copyVideo(video.getAbsolutePath(), null, promises[i]);
+        }
+        for (FakePromise promise : promises) {
+            assertResolved(promise.await());
+        }
+
+        assertEquals(promises.length, MediaClipboardTestSupport.listFiles(context.getExternalCacheDir(), "clipboard_compat").size());
+    }
+
+    @Test
+    @Config(sdk = 28)
+    public void copyVideo_downloadStagedInExternalCacheIsSharedByContentUri() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(MediaClipboardTestSupport.randomBytes(8192, 19))));
+
+        FakePromise promise = new FakePromise();
+        module.copyVideo(server.url("/clip.mp4").toString(), null, promise);
+        assertResolved(promise.await());
+
+        assertEquals("externalCache", getLastStagingPath(1));
+        assertEquals("content", clipboardManager.getPrimaryClip().getItemAt(0).getUri().getScheme());
+    }
+
+    @Test
+    public void recovery_removesLeftoverPartialFilesButNotCopiesInFlight() throws Exception {
+        File leftover = MediaClipboardTestSupport.writeFile(context.getCacheDir(), "clipboard_old.png" + MediaClipboardUtils.PARTIAL_SUFFIX, new byte[16]);
+        MediaClipboardModule restarted = new MediaClipboardModule(context);
+        try {
+            // Written after startup, as a copy running alongside recovery would
+            File inFlight = MediaClipboardTestSupport.writeFile(context.getCacheDir(), "clipboard_new.png" + MediaClipboardUtils.PARTIAL_SUFFIX, new byte[16]);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (leftover.exists() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertFalse(leftover.exists());
+            assertTrue(inFlight.exists());
+        } finally {
+            restarted.invalidate();
+        }
+    }
+
+    @Test
+    public void invalidate_deletesTemporaryFiles() throws Exception {
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(MediaClipboardTestSupport.randomBytes(1024, 15));
+        FakePromise promise = new FakePromise();
+        module.copyImage(dataUri, null, promise);
+        assertResolved(promise.await());
+
+        module.invalidate();
+
+        assertEquals(0, MediaClipboardTestSupport.listFiles(context.getCacheDir(), "clipboard_image").size());
+    }
+
+    private ReadableMap getMetrics() throws InterruptedException {
+        FakePromise promise = new FakePromise();
+        module.getMetrics(promise);
+        assertResolved(promise.await());
+        return (ReadableMap) promise.getValue();
+    }
+
+    /**
+     * Staging path of the latest copy, once the given number of copies have been accounted
+     */
+    private String getLastStagingPath(int copies) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        ReadableMap storage = getMetrics().getMap("storage");
+        while (storage.getInt("copies") < copies && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            storage = getMetrics().getMap("storage");
+        }
+        return storage.getArray("recentCopies").getMap(0).getString("stagingPath");
+    }
+
+    private static void assertResolved(FakePromise promise) {
+        assertTrue(promise.describe(), promise.isResolved());
+        assertEquals(1, promise.getSettleCount());
+    }
+
+    private static void assertRejected(FakePromise promise, String code) {
+        assertFalse(promise.describe(), promise.isResolved());
+        assertEquals(promise.describe(), code, promise.getCode());
+        assertEquals(1, promise.getSettleCount());
+    }
+}
@@ -0,0 +1,70 @@
+package com.mediaclipboard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MediaClipboardPrefetcherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private File staged;
+    private MediaClipboardPrefetcher prefetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        staged = File.createTempFile("prefetched", ".png");
+        prefetcher = new MediaClipboardPrefetcher(new MediaClipboardPrefetcher.Stager() {
+            @Override
+            public MediaClipboardPrefetcher.StagedMedia stage(String source) throws Exception {
+                if (source.startsWith("slow")) {
+                    release.await();
+                }
+                return new MediaClipboardPrefetcher.StagedMedia(staged.getPath(), null, "image/png", staged.length(), null);
+            }
+
+            @Override
+            public void discard(MediaClipboardPrefetcher.StagedMedia media) {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        prefetcher.shutdown();
+        staged.delete();
+    }
+
+    @Test
+    public void getRunsQueuedStagingOnTheCaller() throws Exception {
+        // Occupy every prefetch thread so the next source stays queued
+        prefetcher.prefetch("slow_1");
+        prefetcher.prefetch("slow_2");
+        prefetcher.prefetch("queued");
+
+        CountDownLatch done = new CountDownLatch(1);
+        MediaClipboardPrefetcher.StagedMedia[] result = new MediaClipboardPrefetcher.StagedMedia[1];
+        Thread caller = new Thread(() -> {
+            result[0] = prefetcher.get("queued");
+            done.countDown();
+        });
+        caller.start();
+
+        assertTrue("get() waited behind the prefetch queue", done.await(5, TimeUnit.SECONDS));
+        assertNotNull(result[0]);
+        assertEquals(staged.getPath(), result[0].localPath);
+    }
+}
@@ -0,0 +1,79 @@
+package com.mediaclipboard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MediaClipboardStorageTest {
+
+    private static final int THREADS = 16;
+    private static final long WRITE_BYTES = 1000;
+
+    @Test
+    public void concurrentCopiesCannotOvershootQuota() throws Exception {
+        MediaClipboardStorage storage = new MediaClipboardStorage();
+        storage.setQuotaBytes(5 * WRITE_BYTES);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        try {
+            List<Future<?>> copies = new ArrayList<>();
+            for (int i = 0; i < THREADS * 4; i++) {
+                String key = "copy_" + i;
+                copies.add(executor.submit(() -> {
+                    start.await();
+                    MediaClipboardStorage.CopySession session = storage.beginCopy();
+                    try {
+                        if (session.tryReserve(WRITE_BYTES)) {
+                            admitted.incrementAndGet();
+                            Thread.sleep(1); // Widen the window between check and write
+                            session.recordWrite(key, WRITE_BYTES);
+                        }
+                    } finally {
+                        storage.finishCopy(session);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> copy : copies) {
+                copy.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(5, admitted.get());
+        assertEquals(5 * WRITE_BYTES, storage.getStagedBytes());
+    }
+
+    @Test
+    public void shortOrFailedWritesReleaseTheirReservation() throws Exception {
+        MediaClipboardStorage storage = new MediaClipboardStorage();
+        storage.setQuotaBytes(2 * WRITE_BYTES);
+
+        MediaClipboardStorage.CopySession shortWrite = storage.beginCopy();
+        assertTrue(shortWrite.tryReserve(WRITE_BYTES));
+        assertEquals(WRITE_BYTES, storage.getStagedBytes());
+        shortWrite.recordWrite("short", WRITE_BYTES / 2);
+        storage.finishCopy(shortWrite);
+        assertEquals(WRITE_BYTES / 2, storage.getStagedBytes());
+
+        MediaClipboardStorage.CopySession failedWrite = storage.beginCopy();
+        assertTrue(failedWrite.tryReserve(WRITE_BYTES));
+        assertFalse(storage.beginCopy().tryReserve(WRITE_BYTES)); // Reserved room counts against other copies
+        storage.finishCopy(failedWrite);
+        assertEquals(WRITE_BYTES / 2, storage.getStagedBytes());
+    }
+}
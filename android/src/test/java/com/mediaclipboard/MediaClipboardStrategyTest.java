@@ -0,0 +1,114 @@
+package com.mediaclipboard;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MediaClipboardStrategyTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private MockedStatic<Arguments> arguments;
+    private long now = 1000000;
+
+    @Before
+    public void setUp() {
+        arguments = MediaClipboardTestSupport.mockArguments();
+    }
+
+    @After
+    public void tearDown() {
+        arguments.close();
+    }
+
+    @Test
+    public void smallPayloadsShareTheFileProviderUri() {
+        MediaClipboardStrategy strategy = create(33);
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("image/png", 4096, false));
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("video/mp4", MediaClipboardStrategy.SMALL_PAYLOAD_BYTES, false));
+    }
+
+    @Test
+    public void compatibilityRouteFollowsApiLevel() {
+        assertEquals(Arrays.asList(MediaClipboardStrategy.MEDIA_STORE, MediaClipboardStrategy.FILE_PROVIDER),
+                create(33).plan("audio/mpeg", 4 * MB, false));
+        assertEquals(Arrays.asList(MediaClipboardStrategy.EXTERNAL_CACHE, MediaClipboardStrategy.FILE_PROVIDER),
+                create(28).plan("application/pdf", 4 * MB, false));
+    }
+
+    @Test
+    public void fileInExternalCacheIsReusedBeforeAndroid10() {
+        assertEquals(Arrays.asList(MediaClipboardStrategy.EXTERNAL_CACHE, MediaClipboardStrategy.FILE_PROVIDER),
+                create(28).plan("image/png", 1024, true));
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), create(33).plan("image/png", 1024, true));
+    }
+
+    @Test
+    public void unknownOrOverBudgetSizesShareLazily() {
+        MediaClipboardStrategy strategy = create(33);
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("video/mp4", -1, false));
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("video/mp4", 500 * MB, false));
+    }
+
+    @Test
+    public void measuredThroughputMovesTheCutoffPerMediaClass() {
+        MediaClipboardStrategy strategy = create(33);
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("video/mp4", 20 * MB, false).get(0));
+
+        // Video copies measured at ~500 ms/MB: a 20 MB video would blow the budget
+        for (int i = 0; i < 10; i++) {
+            strategy.recordSuccess(MediaClipboardStrategy.MEDIA_STORE, "video/mp4", 4 * MB, 2000000000L);
+        }
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("video/mp4", 20 * MB, false));
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("video/mp4", 2 * MB, false).get(0));
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("audio/mpeg", 20 * MB, false).get(0));
+    }
+
+    @Test
+    public void repeatedFailuresPauseTheRouteUntilCooldownEnds() {
+        MediaClipboardStrategy strategy = create(33);
+        for (int i = 0; i < 3; i++) {
+            strategy.recordFailure(MediaClipboardStrategy.MEDIA_STORE, "image/jpeg");
+        }
+        assertEquals(Arrays.asList(MediaClipboardStrategy.FILE_PROVIDER), strategy.plan("image/jpeg", MB, false));
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("video/mp4", MB, false).get(0));
+
+        now += 11 * 60 * 1000;
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("image/jpeg", MB, false).get(0));
+
+        strategy.recordSuccess(MediaClipboardStrategy.MEDIA_STORE, "image/jpeg", MB, 50000000L);
+        strategy.recordFailure(MediaClipboardStrategy.MEDIA_STORE, "image/jpeg");
+        assertEquals(MediaClipboardStrategy.MEDIA_STORE, strategy.plan("image/jpeg", MB, false).get(0));
+    }
+
+    @Test
+    public void metricsReportChoicesAndRoutes() {
+        MediaClipboardStrategy strategy = create(33);
+        strategy.recordChoice(MediaClipboardStrategy.FILE_PROVIDER);
+        strategy.recordSuccess(MediaClipboardStrategy.MEDIA_STORE, "image/png", 512 * 1024, 30000000L);
+        strategy.recordFailure(MediaClipboardStrategy.MEDIA_STORE, "image/png");
+
+        ReadableMap map = strategy.toMap();
+        assertEquals("mediaStore", map.getString("compatibilityRoute"));
+        assertEquals(1, map.getMap("choices").getInt("fileProvider"));
+        assertEquals(1, map.getMap("choices").getInt("mediaStore"));
+        ReadableMap route = map.getArray("routes").getMap(0);
+        assertEquals("image", route.getString("mediaClass"));
+        assertEquals(1, route.getInt("successes"));
+        assertEquals(1, route.getInt("failures"));
+        assertTrue(route.getDouble("overheadMs") < 40);
+    }
+
+    private MediaClipboardStrategy create(int sdkInt) {
+        return new MediaClipboardStrategy(sdkInt, () -> now);
+    }
+}
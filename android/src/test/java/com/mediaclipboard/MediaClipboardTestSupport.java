@@ -0,0 +1,99 @@
+package com.mediaclipboard;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared fixtures for the module tests
+ */
+final class MediaClipboardTestSupport {
+
+    private MediaClipboardTestSupport() {
+    }
+
+    /**
+     * React Native 0.74+ made ReactApplicationContext abstract with BridgeReactContext
+     * as the concrete class, so pick whichever this React Native version provides.
+     */
+    static ReactApplicationContext createContext() {
+        Context application = RuntimeEnvironment.getApplication();
+        for (String className : new String[]{"com.facebook.react.bridge.BridgeReactContext", ReactApplicationContext.class.getName()}) {
+            try {
+                return (ReactApplicationContext) Class.forName(className).getConstructor(Context.class).newInstance(application);
+            } catch (ReflectiveOperationException e) {
+                // Not available in this React Native version
+            }
+        }
+        throw new IllegalStateException("No concrete ReactApplicationContext available");
+    }
+
+    /**
+     * Back Arguments.createMap/createArray with plain Java collections, since the
+     * native WritableNativeMap cannot load in a JVM test. The mock only applies to
+     * the calling thread, which is where the module builds every result map.
+     */
+    static MockedStatic<Arguments> mockArguments() {
+        MockedStatic<Arguments> arguments = Mockito.mockStatic(Arguments.class);
+        arguments.when(Arguments::createMap).thenAnswer(invocation -> new JavaOnlyMap());
+        arguments.when(Arguments::createArray).thenAnswer(invocation -> new JavaOnlyArray());
+        return arguments;
+    }
+
+    static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    static File writeFile(File dir, String name, byte[] data) throws IOException {
+        dir.mkdirs();
+        File file = new File(dir, name);
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(data);
+        }
+        return file;
+    }
+
+    /**
+     * Files in a directory (not recursive) whose names start with the prefix
+     */
+    static List<String> listFiles(File dir, String prefix) {
+        String[] names = dir.list();
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        List<String> matching = new ArrayList<>();
+        for (String name : names) {
+            if (name.startsWith(prefix)) {
+                matching.add(name);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Value at a percentile (0-100) of an unsorted sample, in milliseconds
+     */
+    static double percentileMillis(List<Long> nanos, double percentile) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index))) / 1e6;
+    }
+}
@@ -26,6 +26,30 @@ RCT_EXPORT_METHOD(copyText:(NSString *)text
   });
 }
 
+RCT_EXPORT_METHOD(copyHtml:(NSString *)html
+                  plainText:(NSString *)plainText
+                 withResolver:(RCTPromiseResolveBlock)resolve
+                 withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  dispatch_async(dispatch_get_main_queue(), ^{
+    NSString *text = plainText;
+    if (text == nil) {
+      NSData *data = [html dataUsingEncoding:NSUTF8StringEncoding];
+      NSAttributedString *attributed = [[NSAttributedString alloc] initWithData:data
+                                                                        options:@{NSDocumentTypeDocumentAttribute: NSHTMLTextDocumentType,
+                                                                                  NSCharacterEncodingDocumentAttribute: @(NSUTF8StringEncoding)}
+                                                             documentAttributes:nil
+                                                                          error:nil];
+      text = attributed.string ?: @"";
+    }
+    UIPasteboard.generalPasteboard.items = @[@{
+      @"public.html": html,
+      @"public.utf8-plain-text": text
+    }];
+    resolve(nil);
+  });
+}
+
 RCT_EXPORT_METHOD(copyImage:(NSString *)imagePath
                   options:(NSDictionary *)options
                  withResolver:(RCTPromiseResolveBlock)resolve
@@ -252,6 +276,14 @@ RCT_EXPORT_METHOD(getContent:(RCTPromiseResolveBlock)resolve
     if (pasteboard.string) {
       content[@"type"] = @"text";
       content[@"data"] = pasteboard.string;
+      id html = [pasteboard valueForPasteboardType:@"public.html"];
+      if ([html isKindOfClass:[NSString class]]) {
+        content[@"html"] = html;
+        content[@"mimeType"] = @"text/html";
+      } else if ([html isKindOfClass:[NSData class]]) {
+        content[@"html"] = [[NSString alloc] initWithData:html encoding:NSUTF8StringEncoding];
+        content[@"mimeType"] = @"text/html";
+      }
     } else if (pasteboard.image) {
       content[@"type"] = @"image";
       NSData *imageData = UIImagePNGRepresentation(pasteboard.image);
@@ -283,6 +315,56 @@ RCT_EXPORT_METHOD(clear:(RCTPromiseResolveBlock)resolve
   });
 }
 
+RCT_EXPORT_METHOD(configure:(NSDictionary *)options
+              withResolver:(RCTPromiseResolveBlock)resolve
+              withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  // Download tuning is Android-only; accept the call so shared JS code works on both platforms
+  resolve(nil);
+}
+
+RCT_EXPORT_METHOD(getMetrics:(RCTPromiseResolveBlock)resolve
+               withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  // Staging metrics are only collected on Android
+  resolve(@{});
+}
+
+RCT_EXPORT_METHOD(prefetch:(NSArray<NSString *> *)sources
+                   options:(NSDictionary *)options
+              withResolver:(RCTPromiseResolveBlock)resolve
+              withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  // Prefetch is a hint; iOS loads media at copy time, so just hand back handles
+  NSMutableArray *handles = [NSMutableArray arrayWithCapacity:sources.count];
+  for (NSUInteger i = 0; i < sources.count; i++) {
+    [handles addObject:[NSString stringWithFormat:@"prefetch_%lu", (unsigned long)(i + 1)]];
+  }
+  resolve(handles);
+}
+
+RCT_EXPORT_METHOD(cancelPrefetch:(NSArray<NSString *> *)handles
+                    withResolver:(RCTPromiseResolveBlock)resolve
+                    withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  resolve(nil);
+}
+
+RCT_EXPORT_METHOD(getHistory:(double)offset
+                       limit:(double)limit
+                withResolver:(RCTPromiseResolveBlock)resolve
+                withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  // Clipboard history is only recorded on Android
+  resolve(@[]);
+}
+
+RCT_EXPORT_METHOD(clearHistory:(RCTPromiseResolveBlock)resolve
+                  withRejecter:(RCTPromiseRejectBlock)reject)
+{
+  resolve(nil);
+}
+
 #pragma mark - Helper Methods
 
 - (UIImage *)loadImageFromPath:(NSString *)path {
@@ -5,6 +5,7 @@ jest.mock('react-native', () => {
     NativeModules: {
       MediaClipboard: {
         copyText: jest.fn(() => Promise.resolve()),
+        copyHtml: jest.fn(() => Promise.resolve()),
         copyImage: jest.fn(() => Promise.resolve()),
         copyVideo: jest.fn(() => Promise.resolve()),
         copyPDF: jest.fn(() => Promise.resolve()),
@@ -16,6 +17,14 @@ jest.mock('react-native', () => {
           Promise.resolve({ type: 'text', data: 'test' }),
         ),
         clear: jest.fn(() => Promise.resolve()),
+        configure: jest.fn(() => Promise.resolve()),
+        getMetrics: jest.fn(() => Promise.resolve({})),
+        prefetch: jest.fn((sources) =>
+          Promise.resolve(sources.map((_, i) => `prefetch_${i + 1}`)),
+        ),
+        cancelPrefetch: jest.fn(() => Promise.resolve()),
+        getHistory: jest.fn(() => Promise.resolve([])),
+        clearHistory: jest.fn(() => Promise.resolve()),
       },
     },
     Platform: {
@@ -79,7 +79,6 @@ if ./gradlew assembleDebug --quiet; then
     echo ""
     echo "🎉 Your Android native implementation is working correctly!"
     echo "📱 The package can be safely used on Android."
-    exit 0
 else
     echo -e "${RED}❌ Android compilation failed${NC}"
     echo ""
@@ -89,4 +88,14 @@ else
     echo "   - Java/Kotlin compilation errors"
     echo "   - Package name conflicts"
     exit 1
-fi 
\ No newline at end of file
+fi
+
+echo "🧪 Running Android unit tests (Robolectric)..."
+if ./gradlew :react-native-clipboard-media:testDebugUnitTest --quiet; then
+    echo -e "${GREEN}✅ Android unit tests passed${NC}"
+    exit 0
+else
+    echo -e "${RED}❌ Android unit tests failed${NC}"
+    echo "💡 Reports: node_modules/react-native-clipboard-media/android/build/reports/tests/testDebugUnitTest"
+    exit 1
+fi
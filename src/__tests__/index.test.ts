@@ -13,6 +13,7 @@ describe('MediaClipboard', () => {
     expect(MediaClipboard).toEqual(
       expect.objectContaining({
         copyText: expect.any(Function),
+        copyHtml: expect.any(Function),
         copyImage: expect.any(Function),
         copyVideo: expect.any(Function),
         copyPDF: expect.any(Function),
@@ -22,6 +23,12 @@ describe('MediaClipboard', () => {
         hasContent: expect.any(Function),
         getContent: expect.any(Function),
         clear: expect.any(Function),
+        configure: expect.any(Function),
+        getMetrics: expect.any(Function),
+        prefetch: expect.any(Function),
+        cancelPrefetch: expect.any(Function),
+        getHistory: expect.any(Function),
+        clearHistory: expect.any(Function),
       }),
     );
   });
@@ -38,6 +45,30 @@ describe('MediaClipboard', () => {
     });
   });
 
+  describe('copyHtml', () => {
+    it('should copy HTML with plain text to clipboard', async () => {
+      const html = '<p>Hello <b>World</b></p>';
+      await MediaClipboard.copyHtml(html, 'Hello World');
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.copyHtml).toHaveBeenCalledWith(
+        html,
+        'Hello World',
+      );
+    });
+
+    it('should let native derive plain text when omitted', async () => {
+      const html = '<p>Hello</p>';
+      await MediaClipboard.copyHtml(html);
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.copyHtml).toHaveBeenCalledWith(
+        html,
+        null,
+      );
+    });
+  });
+
   describe('copyImage', () => {
     it('should copy image to clipboard', async () => {
       const imagePath = '/path/to/image.jpg';
@@ -50,6 +81,18 @@ describe('MediaClipboard', () => {
         options,
       );
     });
+
+    it('should pass integrity options through', async () => {
+      const imagePath = 'https://example.com/image.jpg';
+      const options = { expectedHash: 'abc123', expectedSize: 1024 };
+      await MediaClipboard.copyImage(imagePath, options);
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.copyImage).toHaveBeenCalledWith(
+        imagePath,
+        options,
+      );
+    });
   });
 
   describe('copyVideo', () => {
@@ -64,6 +107,18 @@ describe('MediaClipboard', () => {
         options,
       );
     });
+
+    it('should pass preview options through', async () => {
+      const videoPath = '/path/to/video.mp4';
+      const options = { includePreview: true, previewSize: 320 };
+      await MediaClipboard.copyVideo(videoPath, options);
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.copyVideo).toHaveBeenCalledWith(
+        videoPath,
+        options,
+      );
+    });
   });
 
   describe('copyPDF', () => {
@@ -141,4 +196,74 @@ describe('MediaClipboard', () => {
       expect(NativeModules.MediaClipboard.clear).toHaveBeenCalled();
     });
   });
+
+  describe('configure', () => {
+    it('should pass configuration to native module', async () => {
+      const config = {
+        connectTimeout: 5000,
+        readTimeout: 15000,
+        maxRedirects: 3,
+      };
+      await MediaClipboard.configure(config);
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.configure).toHaveBeenCalledWith(
+        config,
+      );
+    });
+  });
+
+  describe('getMetrics', () => {
+    it('should get metrics from native module', async () => {
+      const result = await MediaClipboard.getMetrics();
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.getMetrics).toHaveBeenCalled();
+      expect(result).toEqual({});
+    });
+  });
+
+  describe('prefetch', () => {
+    it('should return one handle per source', async () => {
+      const sources = ['https://example.com/a.jpg', '/path/to/b.png'];
+      const options = { maxEntries: 10 };
+      const handles = await MediaClipboard.prefetch(sources, options);
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.prefetch).toHaveBeenCalledWith(
+        sources,
+        options,
+      );
+      expect(handles).toHaveLength(2);
+    });
+
+    it('should cancel all prefetches when no handles are given', async () => {
+      await MediaClipboard.cancelPrefetch();
+
+      const { NativeModules } = require('react-native');
+      expect(
+        NativeModules.MediaClipboard.cancelPrefetch,
+      ).toHaveBeenCalledWith(null);
+    });
+  });
+
+  describe('getHistory', () => {
+    it('should request the first page by default', async () => {
+      const result = await MediaClipboard.getHistory();
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.getHistory).toHaveBeenCalledWith(
+        0,
+        20,
+      );
+      expect(result).toEqual([]);
+    });
+
+    it('should clear history', async () => {
+      await MediaClipboard.clearHistory();
+
+      const { NativeModules } = require('react-native');
+      expect(NativeModules.MediaClipboard.clearHistory).toHaveBeenCalled();
+    });
+  });
 });
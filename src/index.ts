@@ -66,6 +66,8 @@ export interface ClipboardContent {
   mimeType?: string;
   size?: number;
   filename?: string;
+  /** HTML markup when the clipboard holds rich text (data has the plain text) */
+  html?: string;
 }
 
 /**
@@ -75,6 +77,227 @@ export interface CopyFileOptions {
   mimeType?: string;
   filename?: string;
   showNotification?: boolean;
+  /** SHA-256 of the content as hex (optionally prefixed with "sha256:"); Android only */
+  expectedHash?: string;
+  /** Exact size of the content in bytes; Android only */
+  expectedSize?: number;
+  /** Add a poster frame (video) or cover art (audio) as a second clip item; Android only */
+  includePreview?: boolean;
+  /** Maximum width/height of the preview in pixels (default 512) */
+  previewSize?: number;
+  /**
+   * Extra image encodings paste targets may request, converted on demand;
+   * one of 'image/jpeg', 'image/png', 'image/webp'. Android only
+   */
+  alternateFormats?: Array<'image/jpeg' | 'image/png' | 'image/webp'>;
+}
+
+/**
+ * Native module configuration (Android)
+ */
+export interface MediaClipboardConfig {
+  /** Connect timeout for remote downloads in milliseconds (default 10000) */
+  connectTimeout?: number;
+  /** Read timeout for remote downloads in milliseconds (default 30000) */
+  readTimeout?: number;
+  /** Maximum number of redirects followed per download (default 5) */
+  maxRedirects?: number;
+  /** Retries after a connection error, 408, 429 or 5xx response (default 2) */
+  downloadRetries?: number;
+  /** Downloads run at once against a single host; others wait up to connectTimeout (default 4) */
+  maxConcurrentDownloadsPerHost?: number;
+  /** Consecutive failures after which a host's downloads fail fast (default 5) */
+  circuitBreakerThreshold?: number;
+  /** How long a failing host is skipped before one trial download (default 30000 ms) */
+  circuitBreakerResetMs?: number;
+  /** Maximum bytes staged on disk at any time; null or negative for unlimited */
+  storageQuotaBytes?: number | null;
+  /** Maximum bytes a single copy may write; null or negative for unlimited */
+  maxCopyBytes?: number | null;
+  /** Record clipboard changes into a persistent native history (default false) */
+  historyEnabled?: boolean;
+  /** Number of history entries kept; oldest are overwritten (default 100) */
+  historyCapacity?: number;
+}
+
+/**
+ * Clipboard history entry
+ */
+export interface ClipboardHistoryEntry {
+  timestamp: number;
+  type: 'text' | 'uri' | 'html' | 'unknown';
+  mimeType: string;
+  /** Text content or the staged content URI */
+  data: string;
+  /** True if data was cut to fit the fixed-size history slot */
+  truncated: boolean;
+}
+
+/**
+ * Write accounting for a single copy operation
+ */
+export interface CopyWriteMetrics {
+  startedAt: number;
+  payloadBytes: number;
+  bytesWritten: number;
+  writes: number;
+  /** bytesWritten / payloadBytes */
+  writeAmplification: number;
+  stagingPath: string;
+  /** True if a cheaper staging path was used to stay within quota */
+  downgraded: boolean;
+  /** True if this was background staging for prefetch rather than a copy */
+  prefetch: boolean;
+  /** True if this was an alternate format conversion for a paste target */
+  conversion: boolean;
+  /** SHA-256 of the copied content, if it was computed */
+  contentHash?: string | null;
+}
+
+/**
+ * Disk usage and write amplification of clipboard staging
+ */
+export interface StorageMetrics {
+  quotaBytes: number;
+  maxCopyBytes: number;
+  stagedBytes: number;
+  totalPayloadBytes: number;
+  totalBytesWritten: number;
+  writeAmplification: number;
+  copies: number;
+  /** Background staging runs for prefetch, counted apart from copies */
+  prefetches: number;
+  /** Alternate format conversions, counted apart from copies */
+  conversions: number;
+  refusedCopies: number;
+  downgradedCopies: number;
+  recentCopies: CopyWriteMetrics[];
+}
+
+/**
+ * Background staging cache metrics
+ */
+export interface PrefetchMetrics {
+  entries: number;
+  stagedBytes: number;
+  maxEntries: number;
+  maxBytes: number;
+  hits: number;
+  /** Prefetched sources that failed or were cancelled before a copy used them */
+  misses: number;
+}
+
+/**
+ * Shared I/O buffer pool metrics
+ */
+export interface BufferPoolMetrics {
+  /** Buffers reused from the pool */
+  hits: number;
+  /** Buffers allocated because none was idle */
+  misses: number;
+  /** Returned buffers discarded because the pool was full */
+  dropped: number;
+  /** Bytes currently held by idle buffers */
+  pooledBytes: number;
+}
+
+/**
+ * Video/audio preview cache metrics
+ */
+export interface PreviewMetrics {
+  /** Copies that reused a cached preview */
+  hits: number;
+  /** Previews extracted */
+  generated: number;
+  /** Sources with no frame or cover art to extract */
+  missing: number;
+}
+
+/**
+ * Measured cost of one staging route for one media class
+ */
+export interface StrategyRouteMetrics {
+  route: 'mediaStore' | 'externalCache';
+  mediaClass: 'image' | 'video' | 'audio' | 'file';
+  successes: number;
+  failures: number;
+  /** Learned copy cost per MB */
+  msPerMb: number;
+  /** Learned fixed cost per copy */
+  overheadMs: number;
+  /** True while the route is skipped after repeated failures */
+  coolingDown: boolean;
+}
+
+/**
+ * Staging strategy choices and learned route costs
+ */
+export interface StrategyMetrics {
+  /** Copy route used on this Android version to make media readable by any app */
+  compatibilityRoute: 'mediaStore' | 'externalCache';
+  /** Payloads up to this size share the FileProvider URI without a copy */
+  smallPayloadBytes: number;
+  /** Copies predicted to take longer than this share the FileProvider URI */
+  latencyBudgetMs: number;
+  /** Copies per route the strategy ended up using */
+  choices: Record<string, number>;
+  routes: StrategyRouteMetrics[];
+}
+
+/**
+ * Alternate image format conversion metrics
+ */
+export interface FormatMetrics {
+  /** Requests served from an earlier conversion */
+  hits: number;
+  /** Images encoded to a requested format */
+  conversions: number;
+  /** Images that could not be decoded or encoded */
+  failures: number;
+}
+
+/**
+ * Download health of one remote host
+ */
+export interface HostMetrics {
+  /** 'open' fails downloads fast; 'halfOpen' lets one trial download through */
+  state: 'closed' | 'open' | 'halfOpen';
+  inFlight: number;
+  maxConcurrent: number;
+  successes: number;
+  failures: number;
+  consecutiveFailures: number;
+  retries: number;
+  /** Downloads refused by the circuit breaker or the concurrency limit */
+  rejected: number;
+  /** Smoothed time to a successful response */
+  latencyMs: number;
+  /** Time until an open circuit lets a trial download through */
+  retryInMs: number;
+}
+
+/**
+ * Native module metrics (Android)
+ */
+export interface MediaClipboardMetrics {
+  storage?: StorageMetrics;
+  prefetch?: PrefetchMetrics;
+  buffers?: BufferPoolMetrics;
+  previews?: PreviewMetrics;
+  strategy?: StrategyMetrics;
+  formats?: FormatMetrics;
+  /** Keyed by host, with the port when it is not the default */
+  hosts?: Record<string, HostMetrics>;
+}
+
+/**
+ * Limits for media staged ahead of copy
+ */
+export interface PrefetchOptions {
+  /** Maximum number of prefetched sources kept (default 32) */
+  maxEntries?: number;
+  /** Maximum bytes written to disk for prefetched sources (default 100 MB) */
+  maxBytes?: number;
 }
 
 /**
@@ -93,6 +316,14 @@ export interface MediaClipboardInterface {
    */
   copyText(text: string): Promise<void>;
 
+  /**
+   * Copy HTML to clipboard with a plain text fallback
+   * @param html The HTML document or fragment to copy
+   * @param plainText Optional plain text version; derived from the HTML natively if omitted
+   * @returns Promise that resolves when copy is complete
+   */
+  copyHtml(html: string, plainText?: string): Promise<void>;
+
   /**
    * Copy image to clipboard
    * @param imagePath Path to the image file or base64 data URI
@@ -170,6 +401,51 @@ export interface MediaClipboardInterface {
    * @returns Promise that resolves when clipboard is cleared
    */
   clear(): Promise<void>;
+
+  /**
+   * Configure native module behavior such as download timeouts
+   * @param config Configuration values to update; omitted keys are unchanged
+   * @returns Promise that resolves when the configuration is applied
+   */
+  configure(config: MediaClipboardConfig): Promise<void>;
+
+  /**
+   * Get native staging metrics such as disk usage and write amplification
+   * @returns Promise that resolves to the current metrics snapshot
+   */
+  getMetrics(): Promise<MediaClipboardMetrics>;
+
+  /**
+   * Stage media in the background so a later copy of the same source is instant
+   * @param sources Paths or URLs that may be copied soon
+   * @param options Optional memory and disk limits for staged media
+   * @returns Promise that resolves to one handle per source
+   */
+  prefetch(sources: string[], options?: PrefetchOptions): Promise<string[]>;
+
+  /**
+   * Cancel prefetches and discard anything they staged that was not copied
+   * @param handles Handles returned by prefetch; omit to cancel all
+   * @returns Promise that resolves when cancellation is scheduled
+   */
+  cancelPrefetch(handles?: string[]): Promise<void>;
+
+  /**
+   * Get recorded clipboard history, newest first (requires historyEnabled)
+   * @param offset Number of newest entries to skip
+   * @param limit Maximum number of entries to return
+   * @returns Promise that resolves to a page of history entries
+   */
+  getHistory(
+    offset?: number,
+    limit?: number,
+  ): Promise<ClipboardHistoryEntry[]>;
+
+  /**
+   * Remove all recorded clipboard history
+   * @returns Promise that resolves when history is cleared
+   */
+  clearHistory(): Promise<void>;
 }
 
 /**
@@ -180,6 +456,10 @@ class MediaClipboard implements MediaClipboardInterface {
     return MediaClipboardModule.copyText(text);
   }
 
+  async copyHtml(html: string, plainText?: string): Promise<void> {
+    return MediaClipboardModule.copyHtml(html, plainText ?? null);
+  }
+
   async copyImage(imagePath: string, options?: CopyFileOptions): Promise<void> {
     return MediaClipboardModule.copyImage(imagePath, options || {});
   }
@@ -229,6 +509,36 @@ class MediaClipboard implements MediaClipboardInterface {
   async clear(): Promise<void> {
     return MediaClipboardModule.clear();
   }
+
+  async configure(config: MediaClipboardConfig): Promise<void> {
+    return MediaClipboardModule.configure(config);
+  }
+
+  async getMetrics(): Promise<MediaClipboardMetrics> {
+    return MediaClipboardModule.getMetrics();
+  }
+
+  async prefetch(
+    sources: string[],
+    options?: PrefetchOptions,
+  ): Promise<string[]> {
+    return MediaClipboardModule.prefetch(sources, options || {});
+  }
+
+  async cancelPrefetch(handles?: string[]): Promise<void> {
+    return MediaClipboardModule.cancelPrefetch(handles || null);
+  }
+
+  async getHistory(
+    offset: number = 0,
+    limit: number = 20,
+  ): Promise<ClipboardHistoryEntry[]> {
+    return MediaClipboardModule.getHistory(offset, limit);
+  }
+
+  async clearHistory(): Promise<void> {
+    return MediaClipboardModule.clearHistory();
+  }
 }
 
 // Create and export the default instance
@@ -1,8 +1,12 @@
 import {
   ClipboardContent,
+  ClipboardHistoryEntry,
   ClipboardContentType,
   CopyFileOptions,
+  MediaClipboardConfig,
   MediaClipboardInterface,
+  MediaClipboardMetrics,
+  PrefetchOptions,
   ProgressCallback,
 } from '../index';
 
@@ -10,6 +14,9 @@ import {
  * Web implementation of MediaClipboard using browser Clipboard API
  */
 export class MediaClipboardWeb implements MediaClipboardInterface {
+  private prefetchControllers = new Map<string, AbortController>();
+  private prefetchCounter = 0;
+
   /**
    * Check if the Clipboard API is available
    */
@@ -48,6 +55,19 @@ export class MediaClipboardWeb implements MediaClipboardInterface {
     return this.fallbackCopyText(text);
   }
 
+  async copyHtml(html: string, plainText?: string): Promise<void> {
+    const text = plainText ?? this.htmlToText(html);
+    if (!this.isAdvancedClipboardApiAvailable()) {
+      return this.copyText(text);
+    }
+
+    const clipboardItem = new ClipboardItem({
+      'text/html': new Blob([html], { type: 'text/html' }),
+      'text/plain': new Blob([text], { type: 'text/plain' }),
+    });
+    await navigator.clipboard.write([clipboardItem]);
+  }
+
   async copyImage(
     imagePath: string,
     _options?: CopyFileOptions,
@@ -357,6 +377,57 @@ export class MediaClipboardWeb implements MediaClipboardInterface {
     this.fallbackCopyText('');
   }
 
+  async configure(_config: MediaClipboardConfig): Promise<void> {
+    // Downloads are handled by the browser; nothing to configure on web
+  }
+
+  async getMetrics(): Promise<MediaClipboardMetrics> {
+    // Nothing is staged on disk on web
+    return {};
+  }
+
+  async prefetch(
+    sources: string[],
+    _options?: PrefetchOptions,
+  ): Promise<string[]> {
+    return sources.map((source) => {
+      const handle = `prefetch_${++this.prefetchCounter}`;
+
+      // Warm the browser HTTP cache so the later copy's fetch is served locally
+      if (
+        typeof fetch !== 'undefined' &&
+        typeof AbortController !== 'undefined' &&
+        (source.startsWith('http://') || source.startsWith('https://'))
+      ) {
+        const controller = new AbortController();
+        this.prefetchControllers.set(handle, controller);
+        fetch(source, { signal: controller.signal })
+          .catch(() => undefined)
+          .finally(() => this.prefetchControllers.delete(handle));
+      }
+
+      return handle;
+    });
+  }
+
+  async getHistory(
+    _offset?: number,
+    _limit?: number,
+  ): Promise<ClipboardHistoryEntry[]> {
+    // Browsers do not expose clipboard change events, so no history is kept
+    return [];
+  }
+
+  async clearHistory(): Promise<void> {}
+
+  async cancelPrefetch(handles?: string[]): Promise<void> {
+    const targets = handles || Array.from(this.prefetchControllers.keys());
+    for (const handle of targets) {
+      this.prefetchControllers.get(handle)?.abort();
+      this.prefetchControllers.delete(handle);
+    }
+  }
+
   /**
    * Resolve asset paths for web platform
    */
@@ -406,6 +477,17 @@ export class MediaClipboardWeb implements MediaClipboardInterface {
     return possiblePaths[0];
   }
 
+  /**
+   * Plain text rendering of HTML using the browser parser
+   */
+  private htmlToText(html: string): string {
+    if (typeof DOMParser === 'undefined') {
+      return html.replace(/<[^>]*>/g, '');
+    }
+    const doc = new DOMParser().parseFromString(html, 'text/html');
+    return doc.body.textContent ?? '';
+  }
+
   /**
    * Fallback method for copying text in older browsers
    */